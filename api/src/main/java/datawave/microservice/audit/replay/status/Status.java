@@ -24,6 +24,9 @@ public class Status implements Serializable {
     private ReplayState state;
     private String pathUri;
     private long sendRate;
+    private int parallelism = 1;
+    private boolean distributed;
+    private String owner;
     private List<FileStatus> files = new ArrayList<>();
     private Date lastUpdated;
     private boolean replayUnfinishedFiles;
@@ -60,6 +63,36 @@ public class Status implements Serializable {
         this.sendRate = sendRate;
     }
     
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * @return true if the audit replay's files are shared out between all of the audit service instances, rather than replayed by a single instance
+     */
+    public boolean isDistributed() {
+        return distributed;
+    }
+    
+    public void setDistributed(boolean distributed) {
+        this.distributed = distributed;
+    }
+    
+    /**
+     * @return the id of the audit service instance which started (or most recently reclaimed) the audit replay
+     */
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
     public List<FileStatus> getFiles() {
         return files;
     }
@@ -86,9 +119,10 @@ public class Status implements Serializable {
     
     @Override
     public String toString() {
-        return "{id:" + id + ", state:" + state + ", pathUri:" + pathUri + ", sendRate:" + sendRate + ", files:["
-                        + String.join(",", files.stream().map(FileStatus::toString).collect(Collectors.toSet())) + "], lastUpdated:" + lastUpdated
-                        + ", replayUnfinishedFiles:" + replayUnfinishedFiles + "}";
+        String fileStatuses = String.join(",", files.stream().map(FileStatus::toString).collect(Collectors.toSet()));
+        return "{id:" + id + ", state:" + state + ", pathUri:" + pathUri + ", sendRate:" + sendRate + ", parallelism:" + parallelism + ", distributed:"
+                        + distributed + ", owner:" + owner + ", files:[" + fileStatuses + "], lastUpdated:" + lastUpdated + ", replayUnfinishedFiles:"
+                        + replayUnfinishedFiles + "}";
     }
     
     public static final class FileStatus implements Serializable {
@@ -100,7 +134,10 @@ public class Status implements Serializable {
         private long auditsSent;
         private long auditsFailed;
         private long parseFailures;
+        private long committedOffset;
         private boolean encounteredError;
+        private String owner;
+        private long leaseExpiration;
         
         public FileStatus() {
             
@@ -113,6 +150,7 @@ public class Status implements Serializable {
             this.auditsSent = 0;
             this.auditsFailed = 0;
             this.parseFailures = 0;
+            this.committedOffset = 0;
             this.encounteredError = false;
         }
         
@@ -164,6 +202,17 @@ public class Status implements Serializable {
             this.parseFailures = parseFailures;
         }
         
+        /**
+         * @return the byte offset just past the last line which has been replayed, which allows a resumed replay to seek past the lines already replayed
+         */
+        public long getCommittedOffset() {
+            return committedOffset;
+        }
+        
+        public void setCommittedOffset(long committedOffset) {
+            this.committedOffset = committedOffset;
+        }
+        
         public boolean isEncounteredError() {
             return encounteredError;
         }
@@ -172,10 +221,32 @@ public class Status implements Serializable {
             this.encounteredError = encounteredError;
         }
         
+        /**
+         * @return the id of the audit service instance which has claimed this file for a distributed audit replay, or null if unclaimed
+         */
+        public String getOwner() {
+            return owner;
+        }
+        
+        public void setOwner(String owner) {
+            this.owner = owner;
+        }
+        
+        /**
+         * @return the time (in millis) at which the owner's claim on this file lapses, unless renewed
+         */
+        public long getLeaseExpiration() {
+            return leaseExpiration;
+        }
+        
+        public void setLeaseExpiration(long leaseExpiration) {
+            this.leaseExpiration = leaseExpiration;
+        }
+        
         @Override
         public String toString() {
             return "{pathUri:" + pathUri + ", state:" + state + ", linesRead:" + linesRead + ", auditsSent:" + auditsSent + ", auditsFailed" + auditsFailed
-                            + ", encounteredError:" + encounteredError + "}";
+                            + ", committedOffset:" + committedOffset + ", encounteredError:" + encounteredError + ", owner:" + owner + "}";
         }
     }
 }
@@ -0,0 +1,61 @@
+package datawave.microservice.audit.result;
+
+import java.io.Serializable;
+
+/**
+ * Represents the result of a single audit within a bulk audit request. Successful audits will have an audit ID, and failed audits will have an error.
+ */
+public class AuditResult implements Serializable {
+    private static final long serialVersionUID = -3271857106526093342L;
+    
+    private int index;
+    private String auditId;
+    private String error;
+    
+    public AuditResult() {
+        // empty constructor provided for serialization
+    }
+    
+    public AuditResult(int index, String auditId, String error) {
+        this.index = index;
+        this.auditId = auditId;
+        this.error = error;
+    }
+    
+    public static AuditResult success(int index, String auditId) {
+        return new AuditResult(index, auditId, null);
+    }
+    
+    public static AuditResult failure(int index, String auditId, String error) {
+        return new AuditResult(index, auditId, error);
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public String getAuditId() {
+        return auditId;
+    }
+    
+    public void setAuditId(String auditId) {
+        this.auditId = auditId;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    @Override
+    public String toString() {
+        return "AuditResult{index=" + index + ", auditId='" + auditId + "', error='" + error + "'}";
+    }
+}
@@ -17,9 +17,17 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import datawave.webservice.common.audit.Auditor.AuditType;
 
+/**
+ * The parameters for a single audit.
+ * <p>
+ * Instances are not thread-safe, and should not be shared between threads. Use {@link #builder()} to create a new instance from known values, or
+ * {@link #decode(Map)} to create a new instance from an audit message.
+ */
 public class AuditParameters {
     
     public static final String USER_DN = "auditUserDN";
@@ -35,6 +43,9 @@ public class AuditParameters {
     private static final List<String> REQUIRED_PARAMS = Arrays.asList(USER_DN, QUERY_STRING, QUERY_AUTHORIZATIONS, QUERY_AUDIT_TYPE,
                     QUERY_SECURITY_MARKING_COLVIZ);
     
+    // parsed visibilities are shared between audits, since audits typically use a small number of distinct markings
+    private static final Cache<String,ColumnVisibility> COLVIZ_CACHE = CacheBuilder.newBuilder().maximumSize(1024).build();
+    
     protected Date queryDate = null;
     protected String userDn;
     protected String query = null;
@@ -75,7 +86,7 @@ public class AuditParameters {
                     this.auditType = AuditType.valueOf(values.get(0));
                     break;
                 case QUERY_SECURITY_MARKING_COLVIZ:
-                    this.colviz = new ColumnVisibility(values.get(0));
+                    this.colviz = parseColumnVisibility(values.get(0));
                     break;
                 default:
                     throw new IllegalArgumentException("Unknown condition.");
@@ -235,10 +246,92 @@ public class AuditParameters {
         return ap;
     }
     
+    /**
+     * Creates a new instance from the given audit message.
+     *
+     * @param msg
+     *            the audit message
+     * @return a new instance
+     * @deprecated use {@link #decode(Map)}, which does not require an existing instance
+     */
+    @Deprecated
     public AuditParameters fromMap(Map<String,String> msg) {
         return fromMapInternal(msg);
     }
     
+    /**
+     * Creates a new instance directly from an audit message, as produced by {@link #toMap()}.
+     * <p>
+     * This produces the same result as {@link #fromMap(Map)}, but reads the message values directly rather than building an intermediate multimap, and reuses
+     * previously parsed column visibilities.
+     *
+     * @param msg
+     *            the audit message
+     * @return a new instance
+     * @throws NullPointerException
+     *             if a required parameter is missing
+     * @throws IllegalArgumentException
+     *             if a parameter value is invalid
+     */
+    public static AuditParameters decode(Map<String,String> msg) {
+        AuditParameters ap = new AuditParameters();
+        ap.userDn = Preconditions.checkNotNull(msg.get(USER_DN), "Required parameter %s not found", USER_DN);
+        ap.query = Preconditions.checkNotNull(msg.get(QUERY_STRING), "Required parameter %s not found", QUERY_STRING);
+        
+        String auths = normalizeAuths(Preconditions.checkNotNull(msg.get(QUERY_AUTHORIZATIONS), "Required parameter %s not found", QUERY_AUTHORIZATIONS));
+        ap.auths = Preconditions.checkNotNull(auths.isEmpty() ? null : auths, "Required parameter %s not found", QUERY_AUTHORIZATIONS);
+        
+        ap.auditType = AuditType.valueOf(
+                        Preconditions.checkNotNull(msg.get(QUERY_AUDIT_TYPE), "Required parameter %s not found", QUERY_AUDIT_TYPE));
+        ap.colviz = parseColumnVisibility(Preconditions.checkNotNull(msg.get(QUERY_SECURITY_MARKING_COLVIZ), "Required parameter %s not found",
+                        QUERY_SECURITY_MARKING_COLVIZ));
+        ap.queryDate = new Date(Long.parseLong(msg.get(QUERY_DATE)));
+        
+        String selectors = msg.get(QUERY_SELECTORS);
+        if (selectors != null) {
+            ap.selectors = Arrays.asList(selectors.split(","));
+        }
+        
+        ap.auditId = msg.containsKey(AUDIT_ID) ? msg.get(AUDIT_ID) : UUID.randomUUID().toString();
+        ap.logicClass = msg.get(QUERY_LOGIC_CLASS);
+        return ap;
+    }
+    
+    /**
+     * Returns a column visibility for the given expression, reusing a previously parsed instance when possible.
+     *
+     * @param expression
+     *            the column visibility expression
+     * @return the column visibility
+     */
+    public static ColumnVisibility parseColumnVisibility(String expression) {
+        return COLVIZ_CACHE.asMap().computeIfAbsent(expression, ColumnVisibility::new);
+    }
+    
+    // ensure that auths are comma separated with no empty values or spaces, only splitting when the auths are not already in that form
+    private static String normalizeAuths(String auths) {
+        boolean normalized = true;
+        for (int i = 0; normalized && i < auths.length(); i++) {
+            char c = auths.charAt(i);
+            if (c == ',') {
+                normalized = i > 0 && i < auths.length() - 1 && auths.charAt(i - 1) != ',';
+            } else {
+                normalized = !Character.isWhitespace(c) && !Character.isSpaceChar(c);
+            }
+        }
+        
+        if (normalized) {
+            return auths;
+        }
+        
+        Splitter splitter = Splitter.on(',').omitEmptyStrings().trimResults();
+        return StringUtils.join(splitter.splitToList(auths), ",");
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
     @Override
     public String toString() {
         ToStringBuilder tsb = new ToStringBuilder(this);
@@ -311,4 +404,85 @@ public class AuditParameters {
     public Collection<String> getRequiredAuditParameters() {
         return REQUIRED_PARAMS;
     }
+    
+    /**
+     * Builds a new, validated instance. The query date defaults to the current time, and the audit ID defaults to a random UUID.
+     */
+    public static class Builder {
+        protected Date queryDate;
+        protected String userDn;
+        protected String query;
+        protected List<String> selectors;
+        protected String auths;
+        protected AuditType auditType;
+        protected ColumnVisibility colviz;
+        protected String auditId;
+        protected String logicClass;
+        
+        public Builder setQueryDate(Date queryDate) {
+            this.queryDate = queryDate;
+            return this;
+        }
+        
+        public Builder setUserDn(String userDn) {
+            this.userDn = userDn;
+            return this;
+        }
+        
+        public Builder setQuery(String query) {
+            this.query = query;
+            return this;
+        }
+        
+        public Builder setSelectors(List<String> selectors) {
+            this.selectors = selectors;
+            return this;
+        }
+        
+        public Builder setAuths(String auths) {
+            this.auths = auths;
+            return this;
+        }
+        
+        public Builder setAuditType(AuditType auditType) {
+            this.auditType = auditType;
+            return this;
+        }
+        
+        public Builder setColviz(ColumnVisibility colviz) {
+            this.colviz = colviz;
+            return this;
+        }
+        
+        public Builder setColviz(String colviz) {
+            this.colviz = (colviz != null) ? parseColumnVisibility(colviz) : null;
+            return this;
+        }
+        
+        public Builder setAuditId(String auditId) {
+            this.auditId = auditId;
+            return this;
+        }
+        
+        public Builder setLogicClass(String logicClass) {
+            this.logicClass = logicClass;
+            return this;
+        }
+        
+        public AuditParameters build() {
+            AuditParameters ap = new AuditParameters();
+            ap.userDn = Preconditions.checkNotNull(userDn, "Required parameter %s not found", USER_DN);
+            ap.query = Preconditions.checkNotNull(query, "Required parameter %s not found", QUERY_STRING);
+            String normalizedAuths = normalizeAuths(Preconditions.checkNotNull(auths, "Required parameter %s not found", QUERY_AUTHORIZATIONS));
+            ap.auths = Preconditions.checkNotNull(normalizedAuths.isEmpty() ? null : normalizedAuths, "Required parameter %s not found",
+                            QUERY_AUTHORIZATIONS);
+            ap.auditType = Preconditions.checkNotNull(auditType, "Required parameter %s not found", QUERY_AUDIT_TYPE);
+            ap.colviz = Preconditions.checkNotNull(colviz, "Required parameter %s not found", QUERY_SECURITY_MARKING_COLVIZ);
+            ap.queryDate = (queryDate != null) ? queryDate : new Date();
+            ap.selectors = selectors;
+            ap.auditId = StringUtils.isEmpty(auditId) ? UUID.randomUUID().toString() : auditId;
+            ap.logicClass = logicClass;
+            return ap;
+        }
+    }
 }
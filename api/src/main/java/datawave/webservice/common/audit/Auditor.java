@@ -1,5 +1,7 @@
 package datawave.webservice.common.audit;
 
+import java.util.Collection;
+
 public interface Auditor {
     
     enum AuditType {
@@ -17,4 +19,19 @@ public interface Auditor {
      */
     void audit(AuditParameters msg) throws Exception;
     
+    /**
+     * Audits a collection of messages. By default, each message is audited individually, but implementations may override this in order to commit the whole
+     * collection in a single write.
+     *
+     * @param msgs
+     *            parameters for each of the audit messages
+     * @throws Exception
+     *             if there is any problem auditing
+     */
+    default void audit(Collection<AuditParameters> msgs) throws Exception {
+        for (AuditParameters msg : msgs) {
+            audit(msg);
+        }
+    }
+    
 }
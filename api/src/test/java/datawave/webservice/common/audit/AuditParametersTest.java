@@ -1,6 +1,7 @@
 package datawave.webservice.common.audit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -274,6 +275,61 @@ public class AuditParametersTest {
         assertEquals(auditParams, fromMapParams);
     }
     
+    @Test
+    public void decodeTest() {
+        AuditParameters auditParams = new AuditParameters();
+        auditParams.setUserDn("someUser");
+        auditParams.setQuery("someQuery");
+        auditParams.setSelectors(Arrays.asList("sel1", "sel2"));
+        auditParams.setAuths("AUTH1,AUTH2");
+        auditParams.setAuditType(Auditor.AuditType.ACTIVE);
+        auditParams.setColviz(new ColumnVisibility("ALL"));
+        auditParams.setQueryDate(new Date());
+        auditParams.setAuditId(UUID.randomUUID().toString());
+        auditParams.setLogicClass("QueryLogicClass");
+        
+        Map<String,String> msg = auditParams.toMap();
+        
+        assertEquals(auditParams, AuditParameters.decode(msg));
+        assertEquals(new AuditParameters().fromMap(msg), AuditParameters.decode(msg));
+    }
+    
+    @Test
+    public void decodeNormalizesAuthsTest() {
+        Map<String,String> msg = AuditParameters.builder().setUserDn("someUser").setQuery("someQuery").setAuths("AUTH1").setAuditType(Auditor.AuditType.ACTIVE)
+                        .setColviz("ALL").build().toMap();
+        msg.put(AuditParameters.QUERY_AUTHORIZATIONS, " AUTH1,,AUTH2, ");
+        
+        assertEquals("AUTH1,AUTH2", AuditParameters.decode(msg).getAuths());
+    }
+    
+    @Test
+    public void decodeMissingUserDNTest() {
+        Map<String,String> msg = AuditParameters.builder().setUserDn("someUser").setQuery("someQuery").setAuths("AUTH1").setAuditType(Auditor.AuditType.ACTIVE)
+                        .setColviz("ALL").build().toMap();
+        msg.remove(AuditParameters.USER_DN);
+        
+        assertThrows(NullPointerException.class, () -> AuditParameters.decode(msg));
+    }
+    
+    @Test
+    public void builderTest() {
+        Date queryDate = new Date();
+        AuditParameters auditParams = AuditParameters.builder().setUserDn("someUser").setQuery("someQuery").setSelectors(Arrays.asList("sel1", "sel2"))
+                        .setAuths("AUTH1, AUTH2").setAuditType(Auditor.AuditType.ACTIVE).setColviz("ALL").setQueryDate(queryDate).build();
+        
+        assertEquals("someUser", auditParams.getUserDn());
+        assertEquals("someQuery", auditParams.getQuery());
+        assertEquals(Arrays.asList("sel1", "sel2"), auditParams.getSelectors());
+        assertEquals("AUTH1,AUTH2", auditParams.getAuths());
+        assertEquals(Auditor.AuditType.ACTIVE, auditParams.getAuditType());
+        assertEquals(new ColumnVisibility("ALL"), auditParams.getColviz());
+        assertEquals(queryDate, auditParams.getQueryDate());
+        assertNotNull(auditParams.getAuditId());
+        
+        assertThrows(NullPointerException.class, () -> AuditParameters.builder().setUserDn("someUser").build());
+    }
+    
     @Test
     public void clearTest() {
         AuditParameters auditParams = new AuditParameters();
@@ -0,0 +1,81 @@
+package datawave.microservice.audit.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.client.AccumuloClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import datawave.accumulo.inmemory.InMemoryAccumuloClient;
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.microservice.audit.auditors.accumulo.AccumuloAuditor;
+import datawave.webservice.common.audit.AuditParameters;
+
+/**
+ * Measures {@link AccumuloAuditor#audit(AuditParameters)} against an in-memory Accumulo client. This isolates the cost of the auditor itself (mutation
+ * creation, and the shared batch writer's locking and flushing) from any network or tablet server latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccumuloAuditorBenchmark {
+    
+    private static final int BATCH_SIZE = 100;
+    
+    private AccumuloAuditor accumuloAuditor;
+    
+    private AuditParameters auditParameters;
+    
+    private List<AuditParameters> auditBatch;
+    
+    @Setup
+    public void setup() throws Exception {
+        AccumuloClient accumuloClient = new InMemoryAccumuloClient("root", new InMemoryInstance("benchmark"));
+        accumuloAuditor = new AccumuloAuditor("QueryAuditTable", accumuloClient);
+        
+        auditParameters = BenchmarkAudits.create(0);
+        
+        auditBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            auditBatch.add(BenchmarkAudits.create(i));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        accumuloAuditor.close();
+    }
+    
+    @Benchmark
+    public void audit() throws Exception {
+        accumuloAuditor.audit(auditParameters);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public void auditConcurrent() throws Exception {
+        accumuloAuditor.audit(auditParameters);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void auditBatch() throws Exception {
+        accumuloAuditor.audit(auditBatch);
+    }
+}
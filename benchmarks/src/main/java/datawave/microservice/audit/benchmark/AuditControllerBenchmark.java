@@ -0,0 +1,118 @@
+package datawave.microservice.audit.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import datawave.microservice.audit.AuditController;
+import datawave.microservice.audit.common.AuditMessage;
+import datawave.microservice.audit.common.AuditMessageSupplier;
+import datawave.microservice.audit.common.PendingAckRegistry;
+import datawave.microservice.audit.config.AuditProperties;
+import datawave.microservice.audit.health.AuditCircuitBreaker;
+import datawave.webservice.common.audit.AuditParameters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures {@link AuditController#audit(AuditParameters)} with a stubbed {@link AuditMessageSupplier}. When confirm acks are enabled, the stub acknowledges
+ * each message as soon as it is sent, so the result reflects the controller's own overhead for tracking and completing confirm acks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditControllerBenchmark {
+    
+    @Param({"true", "false"})
+    public boolean confirmAckEnabled;
+    
+    private ScheduledExecutorService auditRetryScheduler;
+    
+    private ExecutorService auditFallbackExecutor;
+    
+    private PendingAckRegistry pendingAckRegistry;
+    
+    private AuditController auditController;
+    
+    /**
+     * Each thread uses its own audit parameters, with a unique audit ID per audit.
+     */
+    @State(Scope.Thread)
+    public static class ThreadAudit {
+        private final AuditParameters auditParameters = BenchmarkAudits.create(0);
+        private final String auditIdPrefix = auditParameters.getAuditId() + "-";
+        private long count = 0;
+        
+        public AuditParameters next() {
+            auditParameters.setAuditId(auditIdPrefix + count++);
+            return auditParameters;
+        }
+    }
+    
+    @Setup
+    public void setup() {
+        AuditProperties auditProperties = new AuditProperties();
+        auditProperties.setConfirmAckEnabled(confirmAckEnabled);
+        
+        auditRetryScheduler = Executors.newScheduledThreadPool(auditProperties.getRetry().getSchedulerPoolSize());
+        auditFallbackExecutor = Executors.newFixedThreadPool(auditProperties.getFallbackPoolSize());
+        
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        pendingAckRegistry = new PendingAckRegistry(auditRetryScheduler, auditProperties.getConfirmAckTickMillis(), auditProperties.getConfirmAckStripes(),
+                        meterRegistry);
+        
+        AuditController[] controller = new AuditController[1];
+        AuditMessageSupplier auditSource = new AuditMessageSupplier() {
+            @Override
+            public boolean send(Message<AuditMessage> auditMessage, boolean mayBlock) {
+                if (confirmAckEnabled) {
+                    controller[0].processConfirmAck(auditMessage);
+                }
+                return true;
+            }
+        };
+        
+        auditController = new AuditController(auditProperties, auditSource, pendingAckRegistry,
+                        new AuditCircuitBreaker(auditProperties.getCircuitBreaker(), meterRegistry), auditRetryScheduler, auditFallbackExecutor,
+                        new ObjectMapper(), meterRegistry);
+        controller[0] = auditController;
+    }
+    
+    @TearDown
+    public void tearDown() {
+        pendingAckRegistry.close();
+        auditRetryScheduler.shutdownNow();
+        auditFallbackExecutor.shutdownNow();
+    }
+    
+    @Benchmark
+    public boolean audit(ThreadAudit threadAudit) {
+        return auditController.audit(threadAudit.next());
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public boolean auditConcurrent(ThreadAudit threadAudit) {
+        return auditController.audit(threadAudit.next());
+    }
+}
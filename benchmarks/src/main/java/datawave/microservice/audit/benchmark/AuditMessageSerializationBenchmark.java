@@ -0,0 +1,52 @@
+package datawave.microservice.audit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import datawave.microservice.audit.common.AuditMessage;
+
+/**
+ * Measures Jackson serialization of the {@link AuditMessage} payloads which are passed through the messaging infrastructure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditMessageSerializationBenchmark {
+    
+    private final ObjectMapper mapper = new ObjectMapper();
+    
+    private AuditMessage auditMessage;
+    
+    private byte[] auditMessageBytes;
+    
+    @Setup
+    public void setup() throws Exception {
+        auditMessage = AuditMessage.fromParams(BenchmarkAudits.create(0));
+        auditMessageBytes = mapper.writeValueAsBytes(auditMessage);
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(auditMessage);
+    }
+    
+    @Benchmark
+    public AuditMessage deserialize() throws Exception {
+        return mapper.readValue(auditMessageBytes, AuditMessage.class);
+    }
+}
@@ -0,0 +1,104 @@
+package datawave.microservice.audit.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import datawave.webservice.common.audit.AuditParameters;
+
+/**
+ * Measures {@link AuditParameters#validate(Map)}, as used by the REST endpoints, and compares the original {@link AuditParameters#fromMap(Map)} decoding path,
+ * which builds an intermediate multimap and re-validates the message, with the direct {@link AuditParameters#decode(Map)} path used by the audit message
+ * consumers.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar AuditParametersBenchmark -prof gc} to include allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditParametersBenchmark {
+    
+    private Map<String,String> auditMessage;
+    
+    private AuditParameters auditParameters;
+    
+    private Map<String,List<String>> requestParameters;
+    
+    @Setup
+    public void setup() {
+        AuditParameters auditParameters = BenchmarkAudits.create(0);
+        this.auditParameters = auditParameters;
+        this.auditMessage = auditParameters.toMap();
+        
+        requestParameters = new HashMap<>();
+        for (Map.Entry<String,String> entry : auditMessage.entrySet()) {
+            requestParameters.put(entry.getKey(), Collections.singletonList(entry.getValue()));
+        }
+        requestParameters.put(AuditParameters.QUERY_SELECTORS, auditParameters.getSelectors());
+    }
+    
+    @Benchmark
+    public AuditParameters validate() {
+        AuditParameters params = new AuditParameters();
+        params.validate(requestParameters);
+        return params;
+    }
+    
+    @Benchmark
+    public Map<String,String> toMap() {
+        return auditParameters.toMap();
+    }
+    
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public AuditParameters fromMap() {
+        return new AuditParameters().fromMap(auditMessage);
+    }
+    
+    @Benchmark
+    public AuditParameters decode() {
+        return AuditParameters.decode(auditMessage);
+    }
+    
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Map<String,String> fromMapRoundTrip() {
+        return new AuditParameters().fromMap(auditMessage).toMap();
+    }
+    
+    @Benchmark
+    public Map<String,String> decodeRoundTrip() {
+        return AuditParameters.decode(auditMessage).toMap();
+    }
+    
+    // simulates a consumer binding with concurrency > 1
+    @Benchmark
+    @Threads(4)
+    @SuppressWarnings("deprecation")
+    public Map<String,String> fromMapRoundTripConcurrent() {
+        return new AuditParameters().fromMap(auditMessage).toMap();
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public Map<String,String> decodeRoundTripConcurrent() {
+        return AuditParameters.decode(auditMessage).toMap();
+    }
+}
@@ -0,0 +1,32 @@
+package datawave.microservice.audit.benchmark;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import org.apache.accumulo.core.security.ColumnVisibility;
+
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor;
+
+/**
+ * Creates representative audit parameters for use by the benchmarks.
+ */
+public class BenchmarkAudits {
+    
+    private BenchmarkAudits() {}
+    
+    public static AuditParameters create(int id) {
+        AuditParameters auditParameters = new AuditParameters();
+        auditParameters.setUserDn("cn=test a. user, ou=example developers, o=example corp, c=us<cn=example corp ca, o=example corp, c=us>");
+        auditParameters.setQuery("GENRES:[Action to Western] AND ID == '" + id + "'");
+        auditParameters.setSelectors(Arrays.asList("A", "E", "I", "O", "U"));
+        auditParameters.setAuths("PUBLIC,PRIVATE,BAR,FOO");
+        auditParameters.setAuditType(Auditor.AuditType.ACTIVE);
+        auditParameters.setColviz(new ColumnVisibility("PUBLIC&(BAR|FOO)"));
+        auditParameters.setQueryDate(new Date());
+        auditParameters.setLogicClass("EventQuery");
+        auditParameters.setAuditId(UUID.randomUUID().toString());
+        return auditParameters;
+    }
+}
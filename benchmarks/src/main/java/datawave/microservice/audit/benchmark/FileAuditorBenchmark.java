@@ -0,0 +1,96 @@
+package datawave.microservice.audit.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import datawave.microservice.audit.auditors.file.FileAuditor;
+import datawave.webservice.common.audit.AuditParameters;
+
+/**
+ * Measures {@link FileAuditor#audit(AuditParameters)} against the local filesystem, for single audits and for batches of audits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileAuditorBenchmark {
+    
+    private static final int BATCH_SIZE = 100;
+    
+    @Param({"8192"})
+    public long maxFileLengthMB;
+    
+    @Param({"1", "4"})
+    public int shards;
+    
+    private File auditDir;
+    
+    private FileAuditor fileAuditor;
+    
+    private AuditParameters auditParameters;
+    
+    private List<AuditParameters> auditBatch;
+    
+    @Setup
+    public void setup() throws Exception {
+        auditDir = Files.createTempDirectory("fileAuditorBenchmark").toFile();
+        
+        // @formatter:off
+        fileAuditor = new FileAuditor.Builder()
+                .setPath(auditDir.toURI().toString())
+                .setMaxFileLengthMB(maxFileLengthMB)
+                .setShards(shards)
+                .build();
+        // @formatter:on
+        
+        auditParameters = BenchmarkAudits.create(0);
+        
+        auditBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            auditBatch.add(BenchmarkAudits.create(i));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(auditDir);
+    }
+    
+    @Benchmark
+    public void audit() throws Exception {
+        fileAuditor.audit(auditParameters);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void auditConcurrent() throws Exception {
+        fileAuditor.audit(auditParameters);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void auditBatch() throws Exception {
+        fileAuditor.audit(auditBatch);
+    }
+}
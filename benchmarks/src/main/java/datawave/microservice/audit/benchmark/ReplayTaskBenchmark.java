@@ -0,0 +1,100 @@
+package datawave.microservice.audit.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import datawave.microservice.audit.replay.config.ReplayProperties;
+import datawave.microservice.audit.replay.runner.ReplayTask;
+import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.audit.replay.status.StatusCache;
+
+/**
+ * Measures the throughput of a {@link ReplayTask} reading and parsing a file of audit messages from the local filesystem. The send rate is effectively
+ * unlimited, and audits are passed to a blackhole rather than the audit controller, so the result reflects the cost of reading and parsing each line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReplayTaskBenchmark {
+    
+    private static final int NUM_LINES = 10000;
+    
+    private final Configuration config = new Configuration();
+    
+    private final ReplayProperties replayProperties = new ReplayProperties();
+    
+    // the status cache is only used to store the status, so the cache inspector isn't needed
+    private final StatusCache statusCache = new StatusCache(null, new ConcurrentMapCacheManager());
+    
+    private String auditFileContents;
+    
+    private File replayDir;
+    
+    private Status status;
+    
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NUM_LINES; i++) {
+            sb.append(mapper.writeValueAsString(BenchmarkAudits.create(i).toMap())).append('\n');
+        }
+        auditFileContents = sb.toString();
+    }
+    
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws Exception {
+        replayDir = Files.createTempDirectory("replayTaskBenchmark").toFile();
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(replayDir, "audit.json").toPath(), UTF_8)) {
+            writer.write(auditFileContents);
+        }
+        
+        status = statusCache.create("benchmark", replayDir.toURI().toString(), Long.MAX_VALUE, false);
+        status.setState(Status.ReplayState.RUNNING);
+    }
+    
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws Exception {
+        FileUtils.deleteDirectory(replayDir);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(NUM_LINES)
+    public void replay(Blackhole blackhole) throws Exception {
+        new ReplayTask(config, status, statusCache, replayProperties) {
+            @Override
+            protected boolean audit(Map<String,String> auditParamsMap) {
+                blackhole.consume(auditParamsMap);
+                return true;
+            }
+        }.run();
+    }
+}
@@ -0,0 +1,139 @@
+package datawave.microservice.audit.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import datawave.microservice.audit.AuditController;
+import datawave.microservice.audit.common.AuditMessage;
+import datawave.microservice.audit.common.AuditMessageSupplier;
+import datawave.microservice.audit.common.PendingAckRegistry;
+import datawave.microservice.audit.common.VirtualThreads;
+import datawave.microservice.audit.config.AuditProperties;
+import datawave.microservice.audit.health.AuditCircuitBreaker;
+import datawave.webservice.common.audit.AuditParameters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures the time taken to complete 5000 concurrent calls to {@link AuditController#audit(AuditParameters)} on platform threads and on virtual threads.
+ * Each call blocks its thread until a stubbed confirm ack arrives after a simulated broker delay, as a REST request thread does. The platform threads are a
+ * fixed pool sized like Undertow's default worker pool. Virtual threads require Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+    
+    private static final int CONCURRENT_AUDITS = 5000;
+    
+    // undertow defaults to eight worker threads per io thread, and one io thread per core (minimum of two)
+    private static final int PLATFORM_THREADS = Math.max(Runtime.getRuntime().availableProcessors(), 2) * 8;
+    
+    @Param({"platform", "virtual"})
+    public String threads;
+    
+    @Param({"1"})
+    public long ackDelayMillis;
+    
+    private ScheduledExecutorService auditRetryScheduler;
+    
+    private ExecutorService auditFallbackExecutor;
+    
+    private ScheduledExecutorService ackScheduler;
+    
+    private PendingAckRegistry pendingAckRegistry;
+    
+    private AuditController auditController;
+    
+    private ExecutorService requestExecutor;
+    
+    private final List<AuditParameters> audits = new ArrayList<>(CONCURRENT_AUDITS);
+    
+    @Setup
+    public void setup() {
+        AuditProperties auditProperties = new AuditProperties();
+        auditProperties.setConfirmAckEnabled(true);
+        auditProperties.setConfirmAckTimeoutMillis(TimeUnit.SECONDS.toMillis(30));
+        
+        auditRetryScheduler = Executors.newScheduledThreadPool(auditProperties.getRetry().getSchedulerPoolSize());
+        auditFallbackExecutor = Executors.newFixedThreadPool(auditProperties.getFallbackPoolSize());
+        ackScheduler = Executors.newScheduledThreadPool(2);
+        
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        pendingAckRegistry = new PendingAckRegistry(auditRetryScheduler, auditProperties.getConfirmAckTickMillis(), auditProperties.getConfirmAckStripes(),
+                        meterRegistry);
+        
+        AuditController[] controller = new AuditController[1];
+        AuditMessageSupplier auditSource = new AuditMessageSupplier() {
+            @Override
+            public boolean send(Message<AuditMessage> auditMessage, boolean mayBlock) {
+                ackScheduler.schedule(() -> controller[0].processConfirmAck(auditMessage), ackDelayMillis, TimeUnit.MILLISECONDS);
+                return true;
+            }
+        };
+        
+        auditController = new AuditController(auditProperties, auditSource, pendingAckRegistry,
+                        new AuditCircuitBreaker(auditProperties.getCircuitBreaker(), meterRegistry), auditRetryScheduler, auditFallbackExecutor,
+                        new ObjectMapper(), meterRegistry);
+        controller[0] = auditController;
+        
+        if ("virtual".equals(threads)) {
+            requestExecutor = VirtualThreads.newThreadPerTaskExecutor("benchmark-request-");
+        } else {
+            requestExecutor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+        
+        // confirm acks are correlated per send attempt, so the same audits can be reused for every invocation
+        for (int i = 0; i < CONCURRENT_AUDITS; i++) {
+            audits.add(BenchmarkAudits.create(i));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        requestExecutor.shutdownNow();
+        pendingAckRegistry.close();
+        ackScheduler.shutdownNow();
+        auditRetryScheduler.shutdownNow();
+        auditFallbackExecutor.shutdownNow();
+    }
+    
+    @Benchmark
+    public int concurrentAudits() throws Exception {
+        List<Future<Boolean>> futures = new ArrayList<>(CONCURRENT_AUDITS);
+        for (AuditParameters auditParameters : audits) {
+            futures.add(requestExecutor.submit(() -> auditController.audit(auditParameters)));
+        }
+        
+        int numSuccessful = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get()) {
+                numSuccessful++;
+            }
+        }
+        return numSuccessful;
+    }
+}
@@ -10,9 +10,17 @@ import static datawave.webservice.common.audit.AuditParameters.QUERY_SELECTORS;
 import static datawave.webservice.common.audit.AuditParameters.QUERY_STRING;
 import static datawave.webservice.common.audit.AuditParameters.USER_DN;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -26,19 +34,34 @@ import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
 import org.springframework.security.access.annotation.Secured;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import datawave.microservice.audit.common.AuditMessage;
 import datawave.microservice.audit.common.AuditMessageSupplier;
+import datawave.microservice.audit.common.PendingAckRegistry;
 import datawave.microservice.audit.config.AuditProperties;
 import datawave.microservice.audit.config.AuditProperties.Retry;
+import datawave.microservice.audit.health.AuditCircuitBreaker;
 import datawave.microservice.audit.health.HealthChecker;
+import datawave.microservice.audit.result.AuditResult;
 import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -48,6 +71,7 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Sinks;
 
 /**
  * The AuditController presents the REST endpoints for the audit service.
@@ -56,6 +80,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
  * Also, if configured, the audit controller will verify that the message passing infrastructure is healthy before returning successfully to the user. If the
  * message passing infrastructure is unhealthy, or if we can't verify that the message was successfully passed to our messaging infrastructure, a 500 Internal
  * Server Error will be returned to the caller.
+ * <p>
+ * Request threads are never parked while waiting for producer confirm acks. Each send attempt is registered with the {@link PendingAckRegistry}, whose future
+ * is completed by the confirm ack handler or expired by the registry's timer wheel, and retries are scheduled on the audit retry scheduler.
+ * <p>
+ * Retries back off exponentially, with jitter so that audits which failed together are not retried together. Every send attempt first consults the shared
+ * {@link AuditCircuitBreaker}, which is fed the outcome of every attempt, including those failed because the messaging infrastructure was unhealthy. While
+ * the circuit is open, audits go straight to the filesystem rather than each using up the full retry budget.
+ * <p>
+ * Publish latency, confirm ack waits, send attempts and fallbacks to the filesystem are recorded with Micrometer, and are available through the actuator
+ * metrics endpoint.
  */
 @Tag(name = "Audit Controller /v1", description = "DataWave Query Auditing",
                 externalDocs = @ExternalDocumentation(description = "Audit Service Documentation",
@@ -70,10 +104,18 @@ public class AuditController {
     
     private final AuditProperties auditProperties;
     
-    private final AuditParameters restAuditParams;
-    
     private final AuditMessageSupplier auditSource;
     
+    private final PendingAckRegistry pendingAckRegistry;
+    
+    private final AuditCircuitBreaker circuitBreaker;
+    
+    private final ScheduledExecutorService auditRetryScheduler;
+    
+    private final ExecutorService auditFallbackExecutor;
+    
+    private final ObjectMapper objectMapper;
+    
     @Autowired(required = false)
     private HealthChecker healthChecker;
     
@@ -81,16 +123,84 @@ public class AuditController {
     @Qualifier("fileAuditor")
     private Auditor fileAuditor;
     
-    private static final Map<String,CountDownLatch> correlationLatchMap = new ConcurrentHashMap<>();
+    private final Timer publishSuccessTimer;
+    private final Timer publishFailureTimer;
+    private final Timer confirmAckTimer;
+    private final Timer confirmAckTimeoutTimer;
+    private final DistributionSummary attemptsSummary;
+    private final Counter retryCounter;
+    private final Timer fallbackSuccessTimer;
+    private final Timer fallbackFailureTimer;
     
-    public AuditController(AuditProperties auditProperties, @Qualifier("restAuditParams") AuditParameters restAuditParams, AuditMessageSupplier auditSource) {
+    public AuditController(AuditProperties auditProperties, AuditMessageSupplier auditSource, PendingAckRegistry pendingAckRegistry,
+                    AuditCircuitBreaker circuitBreaker, @Qualifier("auditRetryScheduler") ScheduledExecutorService auditRetryScheduler,
+                    @Qualifier("auditFallbackExecutor") ExecutorService auditFallbackExecutor, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
         this.auditProperties = auditProperties;
-        this.restAuditParams = restAuditParams;
         this.auditSource = auditSource;
+        this.pendingAckRegistry = pendingAckRegistry;
+        this.circuitBreaker = circuitBreaker;
+        this.auditRetryScheduler = auditRetryScheduler;
+        this.auditFallbackExecutor = auditFallbackExecutor;
+        this.objectMapper = objectMapper;
+        
+        this.publishSuccessTimer = publishTimer(meterRegistry, "success");
+        this.publishFailureTimer = publishTimer(meterRegistry, "failure");
+        this.confirmAckTimer = confirmAckTimer(meterRegistry, "acked");
+        this.confirmAckTimeoutTimer = confirmAckTimer(meterRegistry, "timeout");
+        this.attemptsSummary = DistributionSummary.builder("audit.attempts").description("The number of send attempts made for each audit")
+                        .publishPercentileHistogram().register(meterRegistry);
+        this.retryCounter = Counter.builder("audit.retries").description("The number of audit send attempts which were retried").register(meterRegistry);
+        this.fallbackSuccessTimer = fallbackTimer(meterRegistry, "success");
+        this.fallbackFailureTimer = fallbackTimer(meterRegistry, "failure");
+        
+        Gauge.builder("audit.source.buffered", auditSource, AuditMessageSupplier::getBufferedCount)
+                        .description("The number of audit messages buffered by the audit source, waiting to be published").register(meterRegistry);
+        Gauge.builder("audit.source.capacity", auditSource, AuditMessageSupplier::getCapacity)
+                        .description("The maximum number of audit messages which the audit source will buffer").register(meterRegistry);
+        for (Sinks.EmitResult reason : Sinks.EmitResult.values()) {
+            if (reason.isFailure()) {
+                FunctionCounter.builder("audit.source.emitFailures", auditSource, source -> source.getEmitFailures(reason))
+                                .description("The number of audit messages which the audit source could not emit").tag("reason", reason.name())
+                                .register(meterRegistry);
+            }
+        }
+    }
+    
+    private static Timer publishTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("audit.publish").description("The time taken to pass an audit to the messaging infrastructure, across all attempts")
+                        .tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry);
+    }
+    
+    private static Timer confirmAckTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("audit.confirmAck.wait").description("The time spent waiting for a producer confirm ack").tag("outcome", outcome)
+                        .publishPercentileHistogram().register(meterRegistry);
+    }
+    
+    private static Timer fallbackTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("audit.fallback").description("The time taken to write an audit to the filesystem after it could not be published")
+                        .tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry);
+    }
+    
+    /**
+     * Tracks the progress of a single audit across all of its send attempts.
+     */
+    private static class PendingAudit {
+        private final AuditParameters auditParameters;
+        private final long auditStartTime = System.currentTimeMillis();
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private int attempts = 0;
+        private long sendEndTime;
+        // set when the audit should go to the filesystem without retrying, either because the circuit breaker is open, or because the audit source rejected
+        // the audit and the overflow policy is to spill it
+        private boolean spill = false;
+        
+        private PendingAudit(AuditParameters auditParameters) {
+            this.auditParameters = auditParameters;
+        }
     }
     
     /**
-     * Receives producer confirm acks, and disengages the latch associated with the given correlation ID.
+     * Receives producer confirm acks, and completes the pending ack associated with the given correlation ID.
      * 
      * @param message
      *            the confirmation ack message
@@ -102,10 +212,8 @@ public class AuditController {
         
         if (headerObj != null) {
             String correlationId = headerObj.toString();
-            if (correlationLatchMap.containsKey(correlationId)) {
-                correlationLatchMap.get(correlationId).countDown();
-            } else {
-                log.warn("Unable to decrement latch for audit ID [{}]", correlationId);
+            if (!pendingAckRegistry.acknowledge(correlationId)) {
+                log.warn("Unable to complete confirm ack for correlation ID [{}]", correlationId);
             }
         } else {
             log.warn("No correlation ID found in confirm ack message");
@@ -115,38 +223,60 @@ public class AuditController {
     /**
      * Passes audit messages to the messaging infrastructure.
      * <p>
-     * The audit ID is used as a correlation ID in order to ensure that a producer confirm ack is received. If a producer confirm ack is not received within the
-     * specified amount of time, a 500 Internal Server Error will be returned to the caller.
+     * Each send attempt is given a unique correlation ID by the pending ack registry in order to ensure that a producer confirm ack is received. If a producer
+     * confirm ack is not received within the specified amount of time, the attempt fails. If the confirm ack window is full, the message is not sent until an
+     * earlier message is resolved.
      *
-     * @param parameters
-     *            The audit parameters to be sent
+     * @param pendingAudit
+     *            The audit to be sent
      */
-    private boolean sendMessage(AuditParameters parameters) {
+    private CompletableFuture<Boolean> sendMessage(PendingAudit pendingAudit) {
+        // only the first attempt runs on the caller's thread, and it may be sent from another thread if it waits for room in the confirm ack window. retries,
+        // and released reservations, run on the shared audit retry scheduler, which must never wait for room in the audit source's buffer
+        Thread caller = (pendingAudit.attempts == 1) ? Thread.currentThread() : null;
+        
         if (healthChecker == null || healthChecker.isHealthy()) {
-            String auditId = parameters.getAuditId();
-            
-            CountDownLatch latch = null;
-            if (auditProperties.isConfirmAckEnabled()) {
-                latch = new CountDownLatch(1);
-                correlationLatchMap.put(auditId, latch);
-            }
-            
-            boolean success = auditSource.send(MessageBuilder.withPayload(AuditMessage.fromParams(parameters)).setCorrelationId(auditId).build());
-            
             if (auditProperties.isConfirmAckEnabled()) {
-                try {
-                    success = success && latch.await(auditProperties.getConfirmAckTimeoutMillis(), TimeUnit.MILLISECONDS);
-                } catch (InterruptedException e) {
-                    success = false;
-                } finally {
-                    correlationLatchMap.remove(auditId);
-                }
+                return pendingAckRegistry.reserve(auditProperties.getConfirmAckTimeoutMillis())
+                                .thenCompose(pendingAck -> sendMessage(pendingAudit, pendingAck, Thread.currentThread() == caller));
             }
             
-            return success;
+            return CompletableFuture.completedFuture(sendMessage(pendingAudit, pendingAudit.auditParameters.getAuditId(), caller != null));
+        }
+        
+        return CompletableFuture.completedFuture(false);
+    }
+    
+    private CompletableFuture<Boolean> sendMessage(PendingAudit pendingAudit, PendingAckRegistry.PendingAck pendingAck, boolean mayBlock) {
+        if (log.isDebugEnabled())
+            log.debug("[{}] Awaiting confirm ack with correlation ID [{}]", pendingAudit.auditParameters.getAuditId(), pendingAck.getCorrelationId());
+        
+        boolean success;
+        try {
+            success = sendMessage(pendingAudit, pendingAck.getCorrelationId(), mayBlock);
+        } catch (RuntimeException e) {
+            pendingAck.cancel();
+            throw e;
+        }
+        
+        if (!success) {
+            pendingAck.cancel();
+            return CompletableFuture.completedFuture(false);
         }
         
-        return false;
+        final long sendTime = System.nanoTime();
+        return pendingAck.getResult().whenComplete((acked, throwable) -> {
+            (Boolean.TRUE.equals(acked) ? confirmAckTimer : confirmAckTimeoutTimer).record(System.nanoTime() - sendTime, TimeUnit.NANOSECONDS);
+        });
+    }
+    
+    private boolean sendMessage(PendingAudit pendingAudit, String correlationId, boolean mayBlock) {
+        AuditMessage auditMessage = AuditMessage.fromParams(pendingAudit.auditParameters);
+        Message<AuditMessage> message = MessageBuilder.withPayload(auditMessage).setCorrelationId(correlationId).build();
+        boolean success = auditSource.send(message, mayBlock);
+        if (!success && auditSource.getOverflowPolicy() == AuditMessageSupplier.OverflowPolicy.SPILL && fileAuditor != null)
+            pendingAudit.spill = true;
+        return success;
     }
     
     /**
@@ -154,7 +284,7 @@ public class AuditController {
      *
      * @param parameters
      *            the audit parameters
-     * @return an audit ID, which can be used for tracking purposes
+     * @return a future which will be completed with an audit ID, which can be used for tracking purposes
      */
     // @formatter:off
     @Operation(
@@ -228,63 +358,259 @@ public class AuditController {
     // @formatter:on
     @Secured({"AuthorizedUser", "AuthorizedServer", "InternalUser", "Administrator"})
     @RequestMapping(path = "/audit", method = RequestMethod.POST)
-    public String audit(@Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters) {
-        restAuditParams.clear();
-        restAuditParams.validate(parameters);
+    public CompletableFuture<String> audit(@Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters) {
+        // a new instance is used for each request, since the audit may be completed on a different thread
+        AuditParameters auditParameters = new AuditParameters();
+        auditParameters.validate(parameters);
+        
+        log.info("[{}] Received audit request with parameters {}", auditParameters.getAuditId(), auditParameters);
+        
+        return auditAsync(auditParameters).thenApply(success -> {
+            if (!success)
+                throw new RuntimeException("Unable to process audit message with id [" + auditParameters.getAuditId() + "]");
+            return auditParameters.getAuditId();
+        });
+    }
+    
+    /**
+     * Performs auditing for each of the audit parameter maps in the request body, via the configured Auditors.
+     * <p>
+     * The request body may either be a JSON array of audit parameter maps, or newline-delimited JSON with one audit parameter map per line. Parameter values
+     * may be given as a single string, or as an array of strings. The whole request body is parsed and validated before any audit is published, so a request
+     * which is too large or malformed is rejected without publishing anything, and may be safely retried. All valid audits are then published together, and
+     * the response is not returned until every audit has either been confirmed or has failed.
+     *
+     * @param body
+     *            the request body
+     * @return a future which will be completed with a result for each audit, in request order
+     * @throws IOException
+     *             if the request body could not be parsed
+     */
+    // @formatter:off
+    @Operation(
+            summary = "Submit multiple audit messages in a single request.",
+            description = "Accepts a JSON array or newline-delimited JSON of audit parameter maps. Audit messages will be forwarded to the configured " +
+                    "auditors. If the request is too large or malformed, no audit messages are forwarded.")
+    @ApiResponse(
+            description = "returns a result for each audit, containing either the audit ID or an error",
+            responseCode = "200",
+            content = @Content(schema = @Schema(implementation = AuditResult.class)))
+    // @formatter:on
+    @Secured({"AuthorizedUser", "AuthorizedServer", "InternalUser", "Administrator"})
+    @RequestMapping(path = "/audits", method = RequestMethod.POST, consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public CompletableFuture<List<AuditResult>> audits(@Parameter(hidden = true) InputStream body) throws IOException {
+        List<AuditResult> results = new ArrayList<>();
         
-        log.info("[{}] Received audit request with parameters {}", restAuditParams.getAuditId(), restAuditParams);
+        // the valid audits, by index. nothing is published until the whole request body has been read, so that a rejected request has no effect
+        Map<Integer,AuditParameters> validAudits = new LinkedHashMap<>();
         
-        if (!audit(restAuditParams))
-            throw new RuntimeException("Unable to process audit message with id [" + restAuditParams.getAuditId() + "]");
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            
+            // a json array is streamed element by element, otherwise each root-level value is treated as a separate audit
+            boolean isArray = (token == JsonToken.START_ARRAY);
+            if (isArray)
+                token = parser.nextToken();
+            
+            int index = 0;
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (index >= auditProperties.getMaxBulkAudits())
+                    throw new IllegalArgumentException("Bulk audit request exceeds the maximum of " + auditProperties.getMaxBulkAudits() + " audits");
+                
+                final int auditIndex = index++;
+                if (token == JsonToken.START_OBJECT) {
+                    Map<String,Object> auditParamsMap = parser.readValueAs(new TypeReference<Map<String,Object>>() {});
+                    
+                    AuditParameters auditParameters = new AuditParameters();
+                    try {
+                        auditParameters.validate(toMultiValueMap(auditParamsMap));
+                    } catch (Exception e) {
+                        log.warn("Invalid audit parameters at index {}: {}", auditIndex, e.getMessage());
+                        results.add(AuditResult.failure(auditIndex, null, e.getMessage()));
+                        token = parser.nextToken();
+                        continue;
+                    }
+                    
+                    results.add(null);
+                    validAudits.put(auditIndex, auditParameters);
+                } else {
+                    parser.skipChildren();
+                    results.add(AuditResult.failure(auditIndex, null, "Expected a map of audit parameters, but found " + token));
+                }
+                token = parser.nextToken();
+            }
+        }
         
-        return restAuditParams.getAuditId();
+        List<CompletableFuture<AuditResult>> pending = new ArrayList<>(validAudits.size());
+        for (Map.Entry<Integer,AuditParameters> entry : validAudits.entrySet()) {
+            int auditIndex = entry.getKey();
+            AuditParameters auditParameters = entry.getValue();
+            
+            log.info("[{}] Received bulk audit request with parameters {}", auditParameters.getAuditId(), auditParameters);
+            
+            pending.add(auditAsync(auditParameters).thenApply(success -> success ? AuditResult.success(auditIndex, auditParameters.getAuditId())
+                            : AuditResult.failure(auditIndex, auditParameters.getAuditId(),
+                                            "Unable to process audit message with id [" + auditParameters.getAuditId() + "]")));
+        }
+        
+        // wait for all of the confirm acks together, then fill in the results in request order
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            for (CompletableFuture<AuditResult> future : pending) {
+                AuditResult result = future.join();
+                results.set(result.getIndex(), result);
+            }
+            return results;
+        });
     }
     
+    private MultiValueMap<String,String> toMultiValueMap(Map<String,Object> auditParamsMap) {
+        MultiValueMap<String,String> parameters = new LinkedMultiValueMap<>();
+        for (Map.Entry<String,Object> entry : auditParamsMap.entrySet()) {
+            if (entry.getValue() instanceof List) {
+                for (Object value : (List<?>) entry.getValue())
+                    if (value != null)
+                        parameters.add(entry.getKey(), value.toString());
+            } else if (entry.getValue() != null) {
+                parameters.add(entry.getKey(), entry.getValue().toString());
+            }
+        }
+        return parameters;
+    }
+    
+    /**
+     * Performs auditing for the given parameters, blocking until the audit has either succeeded or failed.
+     *
+     * @param auditParameters
+     *            the audit parameters
+     * @return true if the audit was successful, false otherwise
+     */
     public boolean audit(AuditParameters auditParameters) {
+        return auditAsync(auditParameters).join();
+    }
+    
+    /**
+     * Performs auditing for the given parameters without blocking the calling thread.
+     * <p>
+     * Failed attempts are retried on the audit retry scheduler, and if all attempts fail, the audit will be written to the filesystem (if configured) on the
+     * audit fallback executor. If the circuit breaker rejects an attempt, the audit goes straight to the filesystem, or is retried as usual if there is no
+     * filesystem fallback. If the audit source's buffer is full, the audit source's overflow policy applies. With the SPILL policy the audit goes straight to
+     * the filesystem, and with the BLOCK policy the calling thread may wait up to the block timeout for room in the buffer. Retries never wait for room, since
+     * they run on the shared audit retry scheduler.
+     *
+     * @param auditParameters
+     *            the audit parameters
+     * @return a future which will be completed with true if the audit was successful, false otherwise
+     */
+    public CompletableFuture<Boolean> auditAsync(AuditParameters auditParameters) {
+        PendingAudit pendingAudit = new PendingAudit(auditParameters);
+        attempt(pendingAudit);
+        return pendingAudit.result;
+    }
+    
+    private void attempt(PendingAudit pendingAudit) {
+        Retry retry = auditProperties.getRetry();
         
-        boolean success;
-        final long auditStartTime = System.currentTimeMillis();
-        long currentTime;
-        int attempts = 0;
+        pendingAudit.attempts++;
+        if (log.isDebugEnabled())
+            log.debug("[{}] Audit attempt {} of {}", pendingAudit.auditParameters.getAuditId(), pendingAudit.attempts, retry.getMaxAttempts());
         
-        Retry retry = auditProperties.getRetry();
+        CompletableFuture<Boolean> sent;
+        if (circuitBreaker.tryAcquire()) {
+            try {
+                sent = sendMessage(pendingAudit);
+            } catch (Exception e) {
+                log.error("[{}] Unable to send audit message", pendingAudit.auditParameters.getAuditId(), e);
+                sent = CompletableFuture.completedFuture(false);
+            }
+            
+            sent = sent.whenComplete((acked, throwable) -> {
+                if (throwable == null && Boolean.TRUE.equals(acked))
+                    circuitBreaker.onSuccess();
+                else
+                    circuitBreaker.onFailure();
+            });
+        } else {
+            log.debug("[{}] Audit circuit breaker is open", pendingAudit.auditParameters.getAuditId());
+            // without a filesystem fallback, spilling would just fail the audit, so keep retrying until the circuit closes or the retry budget runs out
+            pendingAudit.spill = fileAuditor != null;
+            sent = CompletableFuture.completedFuture(false);
+        }
         
-        do {
-            if (attempts++ > 0) {
+        sent.whenComplete((acked, throwable) -> {
+            boolean success = throwable == null && Boolean.TRUE.equals(acked);
+            long currentTime = System.currentTimeMillis();
+            if (!success && !pendingAudit.spill && (currentTime - pendingAudit.auditStartTime) < retry.getFailTimeoutMillis()
+                            && pendingAudit.attempts < retry.getMaxAttempts()) {
                 try {
-                    Thread.sleep(retry.getBackoffIntervalMillis());
-                } catch (InterruptedException e) {
-                    // Ignore -- we'll just end up retrying a little too fast
+                    auditRetryScheduler.schedule(() -> attempt(pendingAudit), backoffMillis(retry, pendingAudit.attempts), TimeUnit.MILLISECONDS);
+                    retryCounter.increment();
+                    return;
+                } catch (RejectedExecutionException e) {
+                    log.warn("[{}] Unable to schedule audit retry", pendingAudit.auditParameters.getAuditId(), e);
                 }
             }
             
-            if (log.isDebugEnabled())
-                log.debug("[{}] Audit attempt {} of {}", auditParameters.getAuditId(), attempts, retry.getMaxAttempts());
+            pendingAudit.sendEndTime = currentTime;
+            attemptsSummary.record(pendingAudit.attempts);
+            (success ? publishSuccessTimer : publishFailureTimer).record(currentTime - pendingAudit.auditStartTime, TimeUnit.MILLISECONDS);
             
-            success = sendMessage(auditParameters);
-            currentTime = System.currentTimeMillis();
-        } while (!success && (currentTime - auditStartTime) < retry.getFailTimeoutMillis() && attempts < retry.getMaxAttempts());
-        
-        // last ditch effort to write the audit message to fileSystem for subsequent processing
-        if (!success && fileAuditor != null) {
-            success = true;
-            try {
-                log.debug("[{}] Attempting to log audit to the filesystem", auditParameters.getAuditId());
-                
-                fileAuditor.audit(auditParameters);
-            } catch (Exception e) {
-                log.error("[{}] Unable to save audit to the filesystem", auditParameters.getAuditId(), e);
-                success = false;
+            if (!success && fileAuditor != null) {
+                try {
+                    auditFallbackExecutor.execute(() -> complete(pendingAudit, fileAudit(pendingAudit.auditParameters)));
+                } catch (RejectedExecutionException e) {
+                    log.error("[{}] Unable to schedule audit to the filesystem", pendingAudit.auditParameters.getAuditId(), e);
+                    complete(pendingAudit, false);
+                }
+            } else {
+                complete(pendingAudit, success);
             }
+        });
+    }
+    
+    /**
+     * Computes the delay before the next send attempt. The backoff interval grows by the backoff multiplier after each failed attempt, up to the maximum
+     * backoff interval, and a random fraction of it (up to the backoff jitter) is then added on.
+     *
+     * @param retry
+     *            the retry properties
+     * @param attempts
+     *            the number of attempts made so far
+     * @return the delay in milliseconds
+     */
+    private static long backoffMillis(Retry retry, int attempts) {
+        double intervalMillis = retry.getBackoffIntervalMillis() * Math.pow(retry.getBackoffMultiplier(), Math.max(attempts - 1, 0));
+        intervalMillis = Math.min(intervalMillis, Math.max(retry.getMaxBackoffIntervalMillis(), retry.getBackoffIntervalMillis()));
+        if (retry.getBackoffJitter() > 0)
+            intervalMillis += intervalMillis * retry.getBackoffJitter() * ThreadLocalRandom.current().nextDouble();
+        return Math.round(intervalMillis);
+    }
+    
+    // last ditch effort to write the audit message to fileSystem for subsequent processing
+    private boolean fileAudit(AuditParameters auditParameters) {
+        long startTime = System.nanoTime();
+        try {
+            log.debug("[{}] Attempting to log audit to the filesystem", auditParameters.getAuditId());
+            
+            fileAuditor.audit(auditParameters);
+            fallbackSuccessTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (Exception e) {
+            log.error("[{}] Unable to save audit to the filesystem", auditParameters.getAuditId(), e);
+            fallbackFailureTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            return false;
         }
+    }
+    
+    private void complete(PendingAudit pendingAudit, boolean success) {
+        String auditId = pendingAudit.auditParameters.getAuditId();
+        long elapsedMillis = pendingAudit.sendEndTime - pendingAudit.auditStartTime;
+        String hdfsElapsed = (fileAuditor != null) ? ", hdfsElapsedMillis = " + (System.currentTimeMillis() - pendingAudit.sendEndTime) : "";
         
         if (!success)
-            log.warn("[{}] Audit failed. {attempts = {}, elapsedMillis = {}{}}", auditParameters.getAuditId(), attempts, (currentTime - auditStartTime),
-                            ((fileAuditor != null) ? ", hdfsElapsedMillis = " + (System.currentTimeMillis() - currentTime) : ""));
+            log.warn("[{}] Audit failed. {attempts = {}, elapsedMillis = {}{}}", auditId, pendingAudit.attempts, elapsedMillis, hdfsElapsed);
         else
-            log.info("[{}] Audit successful. {attempts = {}, elapsedMillis = {}{}}", auditParameters.getAuditId(), attempts, (currentTime - auditStartTime),
-                            ((fileAuditor != null) ? ", hdfsElapsedMillis = " + (System.currentTimeMillis() - currentTime) : ""));
+            log.info("[{}] Audit successful. {attempts = {}, elapsedMillis = {}{}}", auditId, pendingAudit.attempts, elapsedMillis, hdfsElapsed);
         
-        return success;
+        pendingAudit.result.complete(success);
     }
 }
@@ -4,10 +4,6 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.web.servlet.error.ErrorMvcAutoConfiguration;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.context.annotation.RequestScope;
-
-import datawave.webservice.common.audit.AuditParameters;
 
 /**
  * Launcher for the audit service
@@ -16,17 +12,6 @@ import datawave.webservice.common.audit.AuditParameters;
 @SpringBootApplication(scanBasePackages = "datawave.microservice", exclude = {ErrorMvcAutoConfiguration.class})
 public class AuditService {
     
-    @Bean("restAuditParams")
-    @RequestScope
-    public AuditParameters restAuditParams() {
-        return new AuditParameters();
-    }
-    
-    @Bean("msgHandlerAuditParams")
-    public AuditParameters msgHandlerAuditParams() {
-        return new AuditParameters();
-    }
-    
     public static void main(String[] args) {
         SpringApplication.run(AuditService.class, args);
     }
@@ -0,0 +1,191 @@
+package datawave.microservice.audit.auditors;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * An {@link Auditor} decorator which records the throughput, error rate and write latency of the audit sink it wraps.
+ * <p>
+ * Write latencies are recorded in a percentile histogram, tagged with the sink name. Calls which are still in progress are tracked separately, since a write
+ * which never returns will never be recorded in the histogram. Each call claims one of a fixed number of slots, normally one per consumer, and records its
+ * start time there, so tracking a call and scanning for hung calls never allocate. Calls made while every slot is claimed are metered, but not tracked.
+ */
+public class MeteredAuditor implements Auditor {
+    
+    public static final int DEFAULT_SLOTS = 16;
+    
+    // each slot is padded out to its own cache line, so that consumers don't contend when updating their start times
+    private static final int SLOT_STRIDE = 8;
+    
+    private static final long FREE = 0L;
+    
+    private final String sink;
+    
+    private final Auditor delegate;
+    
+    private final Timer writeTimer;
+    
+    private final Counter successCounter;
+    
+    private final Counter failureCounter;
+    
+    private final int numSlots;
+    
+    // the start time of the call which has claimed each slot, or FREE
+    private final AtomicLongArray slots;
+    
+    // assigns each calling thread the slot to start its search from, round robin
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final ThreadLocal<Integer> threadSlot;
+    
+    public MeteredAuditor(String sink, Auditor delegate, MeterRegistry meterRegistry) {
+        this(sink, delegate, meterRegistry, DEFAULT_SLOTS);
+    }
+    
+    /**
+     * @param sink
+     *            the name of the audit sink, used to tag its meters
+     * @param delegate
+     *            the auditor to meter
+     * @param meterRegistry
+     *            the meter registry
+     * @param numSlots
+     *            the maximum number of concurrent calls to track, which should be at least the number of consumers for the audit sink
+     */
+    public MeteredAuditor(String sink, Auditor delegate, MeterRegistry meterRegistry, int numSlots) {
+        this.sink = sink;
+        this.delegate = delegate;
+        this.numSlots = Math.max(numSlots, 1);
+        this.slots = new AtomicLongArray(this.numSlots * SLOT_STRIDE);
+        this.threadSlot = ThreadLocal.withInitial(() -> Math.floorMod(nextSlot.getAndIncrement(), this.numSlots));
+        
+        // @formatter:off
+        this.writeTimer = Timer.builder("audit.sink.write")
+                .description("The time taken by the audit sink to write a call's audits")
+                .tag("sink", sink)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.successCounter = Counter.builder("audit.sink.audits")
+                .description("The number of audits processed by the audit sink")
+                .tag("sink", sink)
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("audit.sink.audits")
+                .description("The number of audits processed by the audit sink")
+                .tag("sink", sink)
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        Gauge.builder("audit.sink.inflight", this, MeteredAuditor::getNumInFlight)
+                .description("The number of calls to the audit sink which are in progress")
+                .tag("sink", sink)
+                .register(meterRegistry);
+        // @formatter:on
+    }
+    
+    @Override
+    public void audit(AuditParameters msg) throws Exception {
+        record(1, () -> delegate.audit(msg));
+    }
+    
+    @Override
+    public void audit(Collection<AuditParameters> msgs) throws Exception {
+        record(msgs.size(), () -> delegate.audit(msgs));
+    }
+    
+    private void record(int numAudits, AuditCall call) throws Exception {
+        int slot = claimSlot();
+        long startTime = System.nanoTime();
+        try {
+            call.run();
+            successCounter.increment(numAudits);
+        } catch (Exception e) {
+            failureCounter.increment(numAudits);
+            throw e;
+        } finally {
+            if (slot >= 0)
+                slots.set(slot, FREE);
+            writeTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    // returns the index of the claimed slot, or -1 if every slot is in use. the search starts at the slot assigned to the thread, so consumers usually reclaim
+    // the same slot on every call
+    private int claimSlot() {
+        long now = System.currentTimeMillis();
+        int start = threadSlot.get();
+        for (int i = 0; i < numSlots; i++) {
+            int slot = ((start + i) % numSlots) * SLOT_STRIDE;
+            if (slots.get(slot) == FREE && slots.compareAndSet(slot, FREE, now))
+                return slot;
+        }
+        return -1;
+    }
+    
+    /**
+     * @return the number of tracked calls which are in progress
+     */
+    public int getNumInFlight() {
+        int numInFlight = 0;
+        for (int i = 0; i < numSlots; i++) {
+            if (slots.get(i * SLOT_STRIDE) != FREE) {
+                numInFlight++;
+            }
+        }
+        return numInFlight;
+    }
+    
+    /**
+     * @param timeoutMillis
+     *            the time after which an in progress call is considered hung
+     * @return the number of in progress calls which have been running for longer than the timeout
+     */
+    public int getNumHung(long timeoutMillis) {
+        long currentTime = System.currentTimeMillis();
+        int numHung = 0;
+        for (int i = 0; i < numSlots; i++) {
+            long startTime = slots.get(i * SLOT_STRIDE);
+            if (startTime != FREE && (currentTime - startTime) > timeoutMillis) {
+                numHung++;
+            }
+        }
+        return numHung;
+    }
+    
+    /**
+     * @param percentile
+     *            the percentile, which must be one of the published percentiles (0.5, 0.95 or 0.99)
+     * @return the recent write latency at the given percentile in milliseconds, or -1 if it is not available
+     */
+    public double getLatencyMillis(double percentile) {
+        for (ValueAtPercentile valueAtPercentile : writeTimer.takeSnapshot().percentileValues()) {
+            if (valueAtPercentile.percentile() == percentile) {
+                return valueAtPercentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return -1;
+    }
+    
+    public String getSink() {
+        return sink;
+    }
+    
+    public Auditor getDelegate() {
+        return delegate;
+    }
+    
+    @FunctionalInterface
+    private interface AuditCall {
+        void run() throws Exception;
+    }
+}
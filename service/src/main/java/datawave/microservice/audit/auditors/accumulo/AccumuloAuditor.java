@@ -2,19 +2,24 @@ package datawave.microservice.audit.auditors.accumulo;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.text.SimpleDateFormat;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.accumulo.core.client.AccumuloClient;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.client.TableExistsException;
+import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
+import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.hadoop.io.Text;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,22 +29,48 @@ import datawave.webservice.common.audit.Auditor;
 
 /**
  * An implementation for {@link Auditor}, which writes audit messages to Accumulo.
+ * <p>
+ * All audit calls share a single, long-lived {@link BatchWriter}. Mutations are added to the shared writer, and the calling thread does not return until a
+ * flush covering its mutation has completed. Concurrent callers are group-committed, meaning that a single flush will cover every mutation which was added
+ * before that flush began. Since the audit message is not acknowledged until the call returns, this preserves the durability guarantees of the original
+ * writer-per-audit approach.
  */
 public class AccumuloAuditor implements Auditor {
     
     private static Logger log = LoggerFactory.getLogger(AccumuloAuditor.class);
     
-    private SimpleDateFormat formatter = new SimpleDateFormat(Auditor.ISO_8601_FORMAT_STRING);
+    // audits may be written concurrently by multiple consumer threads, so a thread-safe formatter is required
+    private FastDateFormat formatter = FastDateFormat.getInstance(Auditor.ISO_8601_FORMAT_STRING);
     
     private String tableName;
     
     private AccumuloClient accumuloClient;
     
-    private ConcurrentHashMap<String,Long> auditTimers = new ConcurrentHashMap<>();
+    private BatchWriterConfig batchWriterConfig;
+    
+    // mutations are added under the read lock, and flushes (or writer replacement) happen under the write lock
+    private final ReentrantReadWriteLock writerLock = new ReentrantReadWriteLock();
+    
+    private BatchWriter writer;
+    
+    private FlushGroup currentGroup = new FlushGroup();
+    
+    /**
+     * Tracks the set of mutations which will be covered by the next flush of the shared writer.
+     */
+    private static class FlushGroup {
+        private volatile boolean flushed = false;
+        private volatile Exception failure = null;
+    }
     
     public AccumuloAuditor(String tableName, AccumuloClient client) {
+        this(tableName, client, new BatchWriterConfig().setMaxLatency(10, TimeUnit.SECONDS).setMaxMemory(1048576L).setMaxWriteThreads(1));
+    }
+    
+    public AccumuloAuditor(String tableName, AccumuloClient client, BatchWriterConfig batchWriterConfig) {
         this.tableName = tableName;
         this.accumuloClient = client;
+        this.batchWriterConfig = batchWriterConfig;
         init();
     }
     
@@ -56,29 +87,172 @@ public class AccumuloAuditor implements Auditor {
     
     @Override
     public void audit(AuditParameters msg) throws Exception {
-        String auditId = msg.getAuditId();
-        if (auditId == null) {
-            auditId = UUID.randomUUID().toString();
+        audit(Collections.singletonList(msg));
+    }
+    
+    /**
+     * Writes the whole collection of audits to the shared writer, and waits for a single flush covering all of them.
+     *
+     * @param msgs
+     *            parameters for each of the audit messages
+     * @throws Exception
+     *             if there is any problem auditing
+     */
+    @Override
+    public void audit(Collection<AuditParameters> msgs) throws Exception {
+        if (msgs.isEmpty())
+            return;
+        
+        // create all of the mutations up front, so that an invalid audit doesn't leave part of the batch in the writer
+        List<Mutation> mutations = new ArrayList<>(msgs.size());
+        for (AuditParameters msg : msgs) {
+            if (!msg.getAuditType().equals(AuditType.NONE)) {
+                Mutation m = new Mutation(formatter.format(msg.getQueryDate()));
+                m.put(new Text(msg.getUserDn()), new Text(""), msg.getColviz(), new Value(msg.toString().getBytes(UTF_8)));
+                mutations.add(m);
+            }
+        }
+        
+        FlushGroup group = null;
+        for (Mutation m : mutations) {
+            // if a flush happened while adding mutations, make sure that the previous group was written successfully
+            FlushGroup nextGroup = addMutation(m);
+            if (group != null && group != nextGroup)
+                awaitFlush(group);
+            group = nextGroup;
         }
         
-        // save the start time of the audit call
-        auditTimers.put(auditId, System.currentTimeMillis());
+        if (group != null)
+            awaitFlush(group);
+    }
+    
+    /**
+     * Adds the mutation to the shared writer.
+     *
+     * @param m
+     *            the mutation to add
+     * @return the flush group which will cover the added mutation
+     * @throws Exception
+     *             if the mutation could not be added to the writer
+     */
+    private FlushGroup addMutation(Mutation m) throws Exception {
+        BatchWriter current;
+        MutationsRejectedException rejected = null;
+        
+        writerLock.readLock().lock();
         try {
-            if (!msg.getAuditType().equals(AuditType.NONE)) {
-                try (BatchWriter writer = accumuloClient.createBatchWriter(tableName,
-                                new BatchWriterConfig().setMaxLatency(10, TimeUnit.SECONDS).setMaxMemory(10240L).setMaxWriteThreads(1))) {
-                    Mutation m = new Mutation(formatter.format(msg.getQueryDate()));
-                    m.put(new Text(msg.getUserDn()), new Text(""), msg.getColviz(), new Value(msg.toString().getBytes(UTF_8)));
-                    writer.addMutation(m);
-                    writer.flush();
+            current = writer;
+            if (current != null) {
+                try {
+                    current.addMutation(m);
+                    return currentGroup;
+                } catch (MutationsRejectedException e) {
+                    rejected = e;
+                }
+            }
+        } finally {
+            writerLock.readLock().unlock();
+        }
+        
+        // either the writer hasn't been created yet, or it has rejected mutations and cannot be reused
+        writerLock.writeLock().lock();
+        try {
+            if (writer == current) {
+                if (rejected != null) {
+                    log.error("Shared batch writer rejected mutations for table [{}]", tableName, rejected);
+                    completeGroup(rejected);
                 }
+                resetWriter();
             }
+            
+            if (rejected != null)
+                throw rejected;
+            
+            if (writer == null)
+                throw new IllegalStateException("Unable to create batch writer for table [" + tableName + "]");
+            
+            writer.addMutation(m);
+            return currentGroup;
         } finally {
-            auditTimers.remove(auditId);
+            writerLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Blocks until a flush covering the given group has completed. If no flush is in progress, the calling thread will flush the writer on behalf of every
+     * thread in the group.
+     *
+     * @param group
+     *            the flush group to wait for
+     * @throws Exception
+     *             if the flush covering the group failed
+     */
+    private void awaitFlush(FlushGroup group) throws Exception {
+        if (!group.flushed) {
+            writerLock.writeLock().lock();
+            try {
+                if (!group.flushed) {
+                    try {
+                        if (writer == null)
+                            throw new IllegalStateException("No batch writer available for table [" + tableName + "]");
+                        writer.flush();
+                        completeGroup(null);
+                    } catch (MutationsRejectedException | IllegalStateException e) {
+                        log.error("Unable to flush audit mutations to table [{}]", tableName, e);
+                        completeGroup(e);
+                        resetWriter();
+                    }
+                }
+            } finally {
+                writerLock.writeLock().unlock();
+            }
+        }
+        
+        if (group.failure != null)
+            throw group.failure;
+    }
+    
+    // must be called while holding the write lock
+    private void completeGroup(Exception failure) {
+        currentGroup.failure = failure;
+        currentGroup.flushed = true;
+        currentGroup = new FlushGroup();
+    }
+    
+    // must be called while holding the write lock
+    private void resetWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (MutationsRejectedException e) {
+                log.debug("Discarding rejected mutations from the failed batch writer", e);
+            }
+        }
+        
+        try {
+            writer = accumuloClient.createBatchWriter(tableName, batchWriterConfig);
+        } catch (TableNotFoundException e) {
+            log.error("Unable to create batch writer for table [{}]", tableName, e);
+            writer = null;
         }
     }
     
-    public ConcurrentHashMap<String,Long> getAuditTimers() {
-        return auditTimers;
+    /**
+     * Flushes and closes the shared writer.
+     */
+    public void close() {
+        writerLock.writeLock().lock();
+        try {
+            if (writer != null) {
+                writer.close();
+                completeGroup(null);
+            }
+        } catch (MutationsRejectedException e) {
+            log.error("Unable to flush audit mutations while closing the batch writer", e);
+            completeGroup(e);
+        } finally {
+            writer = null;
+            writerLock.writeLock().unlock();
+        }
     }
 }
@@ -1,23 +1,27 @@
 package datawave.microservice.audit.auditors.accumulo.config;
 
-import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.BatchWriterConfig;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import datawave.microservice.audit.auditors.MeteredAuditor;
 import datawave.microservice.audit.auditors.accumulo.AccumuloAuditor;
 import datawave.microservice.audit.auditors.accumulo.config.AccumuloAuditProperties.Accumulo;
 import datawave.microservice.audit.auditors.accumulo.health.AccumuloHealthChecker;
+import datawave.microservice.audit.common.AuditMessageBatchConsumer;
 import datawave.microservice.audit.common.AuditMessageConsumer;
-import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Configures the AccumuloAuditor to process messages received by the audit service. This configuration is activated via the 'audit.auditors.accumulo.enabled'
@@ -31,23 +35,42 @@ public class AccumuloAuditConfig {
     
     private Logger log = LoggerFactory.getLogger(this.getClass());
     
-    @Resource(name = "msgHandlerAuditParams")
-    private AuditParameters msgHandlerAuditParams;
-    
     @Bean
-    public AuditMessageConsumer accumuloAuditSink(Auditor accumuloAuditor) {
-        return new AuditMessageConsumer(msgHandlerAuditParams, accumuloAuditor);
+    @ConditionalOnProperty(name = "audit.auditors.accumulo.batch.enabled", havingValue = "false", matchIfMissing = true)
+    public AuditMessageConsumer accumuloAuditSink(@Qualifier("meteredAccumuloAuditor") Auditor meteredAccumuloAuditor) {
+        return new AuditMessageConsumer(meteredAccumuloAuditor);
     }
     
-    @Bean
+    @Bean("accumuloAuditSink")
+    @ConditionalOnProperty(name = "audit.auditors.accumulo.batch.enabled", havingValue = "true")
+    public AuditMessageBatchConsumer accumuloAuditBatchSink(@Qualifier("meteredAccumuloAuditor") Auditor meteredAccumuloAuditor) {
+        return new AuditMessageBatchConsumer(meteredAccumuloAuditor);
+    }
+    
+    @Bean(destroyMethod = "close")
     public AccumuloAuditor accumuloAuditor(AccumuloAuditProperties accumuloAuditProperties, AccumuloClient client) {
-        return new AccumuloAuditor(accumuloAuditProperties.getTableName(), client);
+        AccumuloAuditProperties.Writer writer = accumuloAuditProperties.getWriter();
+        // @formatter:off
+        BatchWriterConfig batchWriterConfig = new BatchWriterConfig()
+                .setMaxMemory(writer.getMaxMemory())
+                .setMaxLatency(writer.getMaxLatencyMillis(), TimeUnit.MILLISECONDS)
+                .setMaxWriteThreads(writer.getMaxWriteThreads());
+        // @formatter:on
+        return new AccumuloAuditor(accumuloAuditProperties.getTableName(), client, batchWriterConfig);
+    }
+    
+    @Bean
+    public MeteredAuditor meteredAccumuloAuditor(AccumuloAuditProperties accumuloAuditProperties, AccumuloAuditor accumuloAuditor,
+                    MeterRegistry meterRegistry) {
+        // one slot per consumer, so that every consumer's in progress write can be checked by the health checker
+        return new MeteredAuditor("accumulo", accumuloAuditor, meterRegistry, accumuloAuditProperties.getConcurrency());
     }
     
     @Bean
     @ConditionalOnProperty(name = "audit.auditors.accumulo.health.enabled", havingValue = "true")
-    public AccumuloHealthChecker accumuloHealthChecker(AccumuloAuditProperties accumuloAuditProperties, AccumuloAuditor accumuloAuditor) {
-        return new AccumuloHealthChecker(accumuloAuditProperties, accumuloAuditor);
+    public AccumuloHealthChecker accumuloHealthChecker(AccumuloAuditProperties accumuloAuditProperties,
+                    @Qualifier("meteredAccumuloAuditor") MeteredAuditor meteredAccumuloAuditor) {
+        return new AccumuloHealthChecker(accumuloAuditProperties, meteredAccumuloAuditor);
     }
     
     @Bean
@@ -17,6 +17,8 @@ public class AccumuloAuditProperties {
     
     private Health health = new Health();
     
+    private Writer writer = new Writer();
+    
     public String getTableName() {
         return tableName;
     }
@@ -49,6 +51,14 @@ public class AccumuloAuditProperties {
         this.health = health;
     }
     
+    public Writer getWriter() {
+        return writer;
+    }
+    
+    public void setWriter(Writer writer) {
+        this.writer = writer;
+    }
+    
     public static class Accumulo {
         private String zookeepers;
         private String instanceName;
@@ -97,6 +107,10 @@ public class AccumuloAuditProperties {
         // between 0 and 1, inclusive) required to mark the service as down
         private double percentHungFailureThreshold = 0.5;
         
+        // The 99th percentile write latency above which the service is marked as down.
+        // If not set, the write latency is reported but not used to determine health
+        private Long latencyFailureThresholdMillis;
+        
         public Long getHungAuditTimeoutMillis() {
             return hungTimeoutUnit.toMillis(hungTimeout);
         }
@@ -124,5 +138,62 @@ public class AccumuloAuditProperties {
         public void setPercentHungFailureThreshold(double percentHungFailureThreshold) {
             this.percentHungFailureThreshold = percentHungFailureThreshold;
         }
+        
+        public Long getLatencyFailureThresholdMillis() {
+            return latencyFailureThresholdMillis;
+        }
+        
+        public void setLatencyFailureThresholdMillis(Long latencyFailureThresholdMillis) {
+            this.latencyFailureThresholdMillis = latencyFailureThresholdMillis;
+        }
+    }
+    
+    public static class Writer {
+        // The maximum number of bytes to buffer in the shared batch writer before flushing
+        private Long maxMemory = 1048576L;
+        
+        // The maximum amount of time to hold mutations in the shared batch writer before flushing
+        private Long maxLatency = 10L;
+        
+        private TimeUnit maxLatencyUnit = TimeUnit.SECONDS;
+        
+        // The maximum number of threads used by the shared batch writer to write to the tablet servers
+        private int maxWriteThreads = 1;
+        
+        public Long getMaxLatencyMillis() {
+            return maxLatencyUnit.toMillis(maxLatency);
+        }
+        
+        public Long getMaxMemory() {
+            return maxMemory;
+        }
+        
+        public void setMaxMemory(Long maxMemory) {
+            this.maxMemory = maxMemory;
+        }
+        
+        public Long getMaxLatency() {
+            return maxLatency;
+        }
+        
+        public void setMaxLatency(Long maxLatency) {
+            this.maxLatency = maxLatency;
+        }
+        
+        public TimeUnit getMaxLatencyUnit() {
+            return maxLatencyUnit;
+        }
+        
+        public void setMaxLatencyUnit(TimeUnit maxLatencyUnit) {
+            this.maxLatencyUnit = maxLatencyUnit;
+        }
+        
+        public int getMaxWriteThreads() {
+            return maxWriteThreads;
+        }
+        
+        public void setMaxWriteThreads(int maxWriteThreads) {
+            this.maxWriteThreads = maxWriteThreads;
+        }
     }
 }
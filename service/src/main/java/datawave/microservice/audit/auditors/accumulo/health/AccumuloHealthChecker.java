@@ -1,37 +1,31 @@
 package datawave.microservice.audit.auditors.accumulo.health;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 
-import datawave.microservice.audit.auditors.accumulo.AccumuloAuditor;
+import datawave.microservice.audit.auditors.MeteredAuditor;
 import datawave.microservice.audit.auditors.accumulo.config.AccumuloAuditProperties;
 
+/**
+ * Reports the health of the Accumulo audit sink, based on the calls tracked by its {@link MeteredAuditor}. Calls which have been in progress for longer than
+ * the hung audit timeout are counted as hung consumers. If a latency failure threshold is configured, the service is also marked as down when the recent 99th
+ * percentile write latency exceeds it.
+ */
 public class AccumuloHealthChecker implements HealthIndicator {
     
     private AccumuloAuditProperties accumuloAuditProperties;
-    private AccumuloAuditor accumuloAuditor;
+    private MeteredAuditor accumuloAuditor;
     
-    public AccumuloHealthChecker(AccumuloAuditProperties accumuloAuditProperties, AccumuloAuditor accumuloAuditor) {
+    public AccumuloHealthChecker(AccumuloAuditProperties accumuloAuditProperties, MeteredAuditor accumuloAuditor) {
         this.accumuloAuditProperties = accumuloAuditProperties;
         this.accumuloAuditor = accumuloAuditor;
     }
     
     @Override
     public Health health() {
-        long currentTime = System.currentTimeMillis();
-        Map<String,Long> auditTimers = new HashMap<>(accumuloAuditor.getAuditTimers());
-        
         long hungTimeoutMillis = accumuloAuditProperties.getHealth().getHungAuditTimeoutMillis();
         
-        int numHungConsumers = 0;
-        for (Map.Entry<String,Long> auditTimer : auditTimers.entrySet()) {
-            if ((currentTime - auditTimer.getValue()) > hungTimeoutMillis) {
-                numHungConsumers++;
-            }
-        }
+        int numHungConsumers = accumuloAuditor.getNumHung(hungTimeoutMillis);
         
         double percentHung = (double) numHungConsumers / accumuloAuditProperties.getConcurrency();
         
@@ -42,8 +36,16 @@ public class AccumuloHealthChecker implements HealthIndicator {
         healthBuilder.withDetail("hungTimeoutMillis", hungTimeoutMillis);
         healthBuilder.withDetail("percentHungFailureThreshold", (accumuloAuditProperties.getHealth().getPercentHungFailureThreshold() * 100) + "%");
         
-        // if the hung threshold is greater than or equal to the failure threshold, mark the service as down
-        if (percentHung >= accumuloAuditProperties.getHealth().getPercentHungFailureThreshold()) {
+        double p99LatencyMillis = accumuloAuditor.getLatencyMillis(0.99);
+        Long latencyFailureThresholdMillis = accumuloAuditProperties.getHealth().getLatencyFailureThresholdMillis();
+        healthBuilder.withDetail("writeLatencyMillisP50", accumuloAuditor.getLatencyMillis(0.5));
+        healthBuilder.withDetail("writeLatencyMillisP99", p99LatencyMillis);
+        if (latencyFailureThresholdMillis != null)
+            healthBuilder.withDetail("latencyFailureThresholdMillis", latencyFailureThresholdMillis);
+        
+        // if the hung threshold is greater than or equal to the failure threshold, or writes are consistently too slow, mark the service as down
+        if (percentHung >= accumuloAuditProperties.getHealth().getPercentHungFailureThreshold()
+                        || (latencyFailureThresholdMillis != null && p99LatencyMillis > latencyFailureThresholdMillis)) {
             healthBuilder.down();
         } else {
             healthBuilder.up();
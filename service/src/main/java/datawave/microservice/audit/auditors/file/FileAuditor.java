@@ -1,22 +1,30 @@
 package datawave.microservice.audit.auditors.file;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,15 +36,34 @@ import datawave.webservice.common.audit.Auditor;
 
 /**
  * An implementation for {@link Auditor}, which writes JSON formatted audit messages to a file.
+ * <p>
+ * Audits are written to one or more shards, each of which has its own file, output stream, and locks, so that concurrent writers do not all contend for a
+ * single file. Each writing thread is assigned to a shard the first time it writes, and always writes to that shard. When there is more than one shard, the
+ * shard index is appended to each file name (e.g. {@code audit-20240101_120000.000-2.json}). Every shard rolls its own file based on its own age and length,
+ * and if a shard's file is renamed out from under it (e.g. when it is queued by audit replay), the shard starts a new file. Unless the durability is
+ * {@link Durability#NONE}, the file is checked after each group is flushed, and a group which may have been written after the rename is written again to the
+ * new file, so it can't be missed by audit replay. Those audits may therefore be written twice, but are never lost.
+ * <p>
+ * A single output stream is held open for each file until the file is rolled, and the length of the file is tracked in memory. Concurrent audits to a shard
+ * are group-committed, meaning that the thread which acquires the shard's write lock writes every audit which is waiting to be written, and then flushes or
+ * syncs the stream once on behalf of all of them, per the configured {@link Durability}. An audit call does not return until a flush or sync covering its audit
+ * has completed.
+ * <p>
+ * If a compression codec is configured, the codec's default extension is appended to the file name (e.g. {@code .json.gz}) so that audit replay can select the
+ * matching decompressor. Each flushed group of audits is written as a complete compressed block (e.g. a gzip member, or a zstd frame), so the file can be
+ * decompressed up to the last flush even if it was never closed.
  */
 public class FileAuditor implements Auditor {
     
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     
+    // how many times a group of audits is written before giving up, if its file keeps being renamed
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    
     protected static final ObjectMapper mapper = new ObjectMapper();
     
-    protected final SimpleDateFormat sdf;
-    protected final ReentrantLock writeLock = new ReentrantLock(true);
+    protected final FastDateFormat sdf;
+    protected final String extension;
     
     protected long maxFileLengthMB;
     protected long maxFileAgeSeconds;
@@ -44,12 +71,40 @@ public class FileAuditor implements Auditor {
     protected FileSystem fileSystem;
     protected Path path;
     
-    protected Path currentFile = null;
-    protected Date creationDate = null;
+    protected Durability durability;
+    protected CompressionCodec codec;
+    
+    protected final Shard[] shards;
+    
+    // assigns each writing thread to a shard, round robin
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ThreadLocal<Shard> threadShard;
+    
+    /**
+     * Determines what is done with the output stream after each group of audits is written.
+     */
+    public enum Durability {
+        // the audits are left in the client's buffer until the buffer fills, or the file is rolled or closed
+        NONE,
+        // the audits are flushed to the filesystem, and are visible to new readers (e.g. audit replay)
+        HFLUSH,
+        // the audits are flushed to the filesystem, and synced to disk
+        HSYNC
+    }
+    
+    /**
+     * A group of audits which will be written to the file, and flushed, together.
+     */
+    private static class WriteGroup {
+        private final List<byte[]> audits = new ArrayList<>();
+        private volatile boolean written = false;
+        private volatile Exception failure = null;
+    }
     
     protected FileAuditor(Builder<?> builder) throws URISyntaxException, IOException {
         this.maxFileLengthMB = builder.maxFileLengthMB;
         this.maxFileAgeSeconds = builder.maxFileAgeSeconds;
+        this.durability = builder.durability;
         
         Configuration config = new Configuration();
         
@@ -70,60 +125,270 @@ public class FileAuditor implements Auditor {
         
         fileSystem = FileSystem.get(path.toUri(), config);
         
-        String sdfString = "yyyyMMdd_HHmmss.SSS'.json'";
+        if (builder.codec != null && !builder.codec.isEmpty()) {
+            codec = new CompressionCodecFactory(config).getCodecByName(builder.codec);
+            if (codec == null) {
+                throw new IllegalArgumentException("Unknown compression codec: " + builder.codec);
+            }
+            
+            // fail fast if the codec requires native libraries which aren't available
+            try {
+                codec.getCompressorType();
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Compression codec " + builder.codec + " is not available", e);
+            }
+        }
+        
+        String sdfString = "yyyyMMdd_HHmmss.SSS";
         if (builder.prefix != null && !builder.prefix.isEmpty()) {
             sdfString = "'" + builder.prefix + "-'" + sdfString;
         }
         
-        this.sdf = new SimpleDateFormat(sdfString);
+        this.sdf = FastDateFormat.getInstance(sdfString);
+        this.extension = ".json" + ((codec != null) ? codec.getDefaultExtension() : "");
+        
+        this.shards = new Shard[Math.max(builder.shards, 1)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+        this.threadShard = ThreadLocal.withInitial(() -> shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)]);
     }
     
     @Override
     public void audit(AuditParameters auditParameters) throws Exception {
-        
-        // create the audit path if it doesn't exist
-        if (!fileSystem.exists(path)) {
-            fileSystem.mkdirs(path);
-        }
+        audit(Collections.singletonList(auditParameters));
+    }
+    
+    /**
+     * Writes the whole collection of audits to the calling thread's shard, as part of a single group commit.
+     *
+     * @param auditParameters
+     *            parameters for each of the audit messages
+     * @throws Exception
+     *             if there is any problem auditing
+     */
+    @Override
+    public void audit(Collection<AuditParameters> auditParameters) throws Exception {
         
         // convert the messages to JSON
-        String jsonAuditParams = mapper.writeValueAsString(auditParameters.toMap()) + "\n";
-        
-        writeLock.lock();
-        try {
-            // if the file/stream is null, doesn't exist, or the file is too old/big, create a new file & output stream
-            if (currentFile == null || !fileSystem.exists(currentFile) || isFileTooOld() || isFileTooBig()) {
-                createNewFile();
-            }
-            
-            writeAudit(jsonAuditParams);
-        } finally {
-            writeLock.unlock();
+        StringBuilder jsonAuditParams = new StringBuilder();
+        for (AuditParameters auditParams : auditParameters) {
+            jsonAuditParams.append(mapper.writeValueAsString(auditParams.toMap())).append("\n");
         }
+        
+        threadShard.get().audit(jsonAuditParams.toString().getBytes(UTF_8));
     }
     
-    protected void writeAudit(String jsonAuditParams) throws Exception {
-        OutputStream appendStream = (fileSystem instanceof LocalFileSystem) ? new FileOutputStream(new File(currentFile.toUri()), true)
-                        : fileSystem.append(currentFile);
-        appendStream.write(jsonAuditParams.getBytes("UTF8"));
-        appendStream.close();
+    protected boolean isFileTooOld(Date creationDate) {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - creationDate.getTime()) >= maxFileAgeSeconds;
     }
     
-    protected void createNewFile() throws IOException, ParseException {
-        // create a new file and output stream
-        Date currentDate = new Date();
-        currentFile = new Path(path, sdf.format(currentDate));
-        FSDataOutputStream outStream = fileSystem.create(currentFile);
-        outStream.close();
-        creationDate = currentDate;
+    protected boolean isFileTooBig(long fileLength) {
+        return ((double) fileLength / (1024L * 1024L)) >= maxFileLengthMB;
     }
     
-    protected boolean isFileTooOld() throws ParseException {
-        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - creationDate.getTime()) >= maxFileAgeSeconds;
+    /**
+     * Flushes and closes the current file of every shard.
+     */
+    public void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
     }
     
-    protected boolean isFileTooBig() throws IOException {
-        return ((double) fileSystem.getFileStatus(currentFile).getLen() / (1024L * 1024L)) >= maxFileLengthMB;
+    /**
+     * A single audit file, and the stream used to write to it.
+     */
+    protected class Shard {
+        private final int index;
+        
+        private final ReentrantLock writeLock = new ReentrantLock(true);
+        
+        private Path currentFile = null;
+        private Date creationDate = null;
+        private FSDataOutputStream currentStream = null;
+        private CompressionOutputStream currentCompressedStream = null;
+        private Compressor currentCompressor = null;
+        private long currentFileLength = 0L;
+        
+        // audits which are waiting to be written, guarded by the pending lock
+        private final ReentrantLock pendingLock = new ReentrantLock();
+        private WriteGroup pendingGroup = new WriteGroup();
+        
+        private Shard(int index) {
+            this.index = index;
+        }
+        
+        private void audit(byte[] audits) throws Exception {
+            // join the group of audits waiting to be written
+            WriteGroup group;
+            pendingLock.lock();
+            try {
+                group = pendingGroup;
+                group.audits.add(audits);
+            } finally {
+                pendingLock.unlock();
+            }
+            
+            // if nobody has written our group yet, write it on behalf of everyone in the group
+            if (!group.written) {
+                writeLock.lock();
+                try {
+                    if (!group.written) {
+                        writeGroup();
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            
+            if (group.failure != null) {
+                throw group.failure;
+            }
+        }
+        
+        // must be called while holding the write lock
+        private void writeGroup() {
+            WriteGroup group;
+            pendingLock.lock();
+            try {
+                group = pendingGroup;
+                pendingGroup = new WriteGroup();
+            } finally {
+                pendingLock.unlock();
+            }
+            
+            try {
+                // if the file/stream is null, or the file is too old/big, create a new file & output stream. unless the durability is NONE, the check after
+                // the previous group's flush is relied on to tell whether the file still exists
+                boolean newFile = currentStream == null || isFileTooOld(creationDate) || isFileTooBig(currentFileLength)
+                                || (durability == Durability.NONE && !fileSystem.exists(currentFile));
+                
+                for (int attempt = 1;; attempt++) {
+                    if (newFile) {
+                        createNewFile();
+                    }
+                    
+                    for (byte[] audit : group.audits) {
+                        writeAudit(audit);
+                    }
+                    
+                    sync();
+                    
+                    // if the file still exists after the flush, the group was flushed before any rename, and will be seen by whoever renames it. otherwise, the
+                    // group may have gone to the renamed file after it was read, so write it again to a new file
+                    if (durability == Durability.NONE || fileSystem.exists(currentFile)) {
+                        break;
+                    }
+                    
+                    if (attempt >= MAX_WRITE_ATTEMPTS) {
+                        throw new IOException("Audit file [" + currentFile + "] was renamed while writing " + attempt + " times");
+                    }
+                    
+                    log.warn("Audit file [{}] was renamed while writing {} audits, writing them again to a new file", currentFile, group.audits.size());
+                    newFile = true;
+                }
+            } catch (Exception e) {
+                log.error("Unable to write {} audits to [{}]", group.audits.size(), currentFile, e);
+                group.failure = e;
+                closeCurrentStream();
+            } finally {
+                group.written = true;
+            }
+        }
+        
+        private void writeAudit(byte[] jsonAuditParams) throws IOException {
+            OutputStream out = (currentCompressedStream != null) ? currentCompressedStream : currentStream;
+            out.write(jsonAuditParams);
+            currentFileLength += jsonAuditParams.length;
+        }
+        
+        private void sync() throws IOException {
+            // complete the compressed block so that everything written so far can be decompressed, and start a new block for the next group
+            if (currentCompressedStream != null && durability != Durability.NONE) {
+                currentCompressedStream.finish();
+                openCompressedStream();
+            }
+            
+            // track the compressed length, rather than the uncompressed length
+            if (currentCompressedStream != null) {
+                currentFileLength = currentStream.getPos();
+            }
+            
+            switch (durability) {
+                case HSYNC:
+                    currentStream.hsync();
+                    break;
+                case HFLUSH:
+                    currentStream.hflush();
+                    break;
+                case NONE:
+                default:
+                    break;
+            }
+        }
+        
+        private void createNewFile() throws IOException {
+            closeCurrentStream();
+            
+            // create the audit path if it doesn't exist
+            if (!fileSystem.exists(path)) {
+                fileSystem.mkdirs(path);
+            }
+            
+            // create a new file and output stream. checksums are skipped for local files, as they are not maintained for appended data
+            Date currentDate = new Date();
+            currentFile = new Path(path, sdf.format(currentDate) + ((shards.length > 1) ? "-" + index : "") + extension);
+            currentStream = (fileSystem instanceof LocalFileSystem) ? ((LocalFileSystem) fileSystem).getRaw().create(currentFile)
+                            : fileSystem.create(currentFile);
+            if (codec != null) {
+                currentCompressor = CodecPool.getCompressor(codec);
+                openCompressedStream();
+            }
+            currentFileLength = 0L;
+            creationDate = currentDate;
+        }
+        
+        // starts a new compressed block on the current stream. codecs without a pooled compressor (e.g. the pure java gzip implementation) manage their own
+        private void openCompressedStream() throws IOException {
+            if (currentCompressor != null) {
+                currentCompressor.reset();
+                currentCompressedStream = codec.createOutputStream(currentStream, currentCompressor);
+            } else {
+                currentCompressedStream = codec.createOutputStream(currentStream);
+            }
+        }
+        
+        private void closeCurrentStream() {
+            if (currentStream != null) {
+                try {
+                    // closing the compressed stream will also close the underlying stream
+                    if (currentCompressedStream != null) {
+                        currentCompressedStream.close();
+                    } else {
+                        currentStream.close();
+                    }
+                } catch (IOException e) {
+                    log.warn("Unable to close audit file [{}]", currentFile, e);
+                }
+                currentStream = null;
+            }
+            
+            if (currentCompressor != null) {
+                CodecPool.returnCompressor(currentCompressor);
+                currentCompressor = null;
+            }
+            currentCompressedStream = null;
+        }
+        
+        private void close() {
+            writeLock.lock();
+            try {
+                closeCurrentStream();
+            } finally {
+                writeLock.unlock();
+            }
+        }
     }
     
     public static class Builder<T extends Builder<T>> {
@@ -134,12 +399,17 @@ public class FileAuditor implements Auditor {
         protected String prefix;
         protected Long maxFileLengthMB;
         protected Long maxFileAgeSeconds;
+        protected Durability durability;
+        protected String codec;
+        protected int shards;
         
         public Builder() {
             user = "datawave";
             prefix = "audit";
             maxFileLengthMB = 8192L;
             maxFileAgeSeconds = TimeUnit.HOURS.toSeconds(6);
+            durability = Durability.HFLUSH;
+            shards = 1;
         }
         
         public String getUser() {
@@ -217,6 +487,52 @@ public class FileAuditor implements Auditor {
             return (T) this;
         }
         
+        public Durability getDurability() {
+            return durability;
+        }
+        
+        public T setDurability(Durability durability) {
+            if (durability != null) {
+                this.durability = durability;
+            }
+            return (T) this;
+        }
+        
+        public String getCodec() {
+            return codec;
+        }
+        
+        /**
+         * Sets the compression codec to use, by name (e.g. gzip, zstd, or snappy) or class name. If unset, audit files will not be compressed.
+         *
+         * @param codec
+         *            the compression codec
+         * @return the builder
+         */
+        public T setCodec(String codec) {
+            this.codec = codec;
+            return (T) this;
+        }
+        
+        public int getShards() {
+            return shards;
+        }
+        
+        /**
+         * Sets the number of shards, each of which writes to its own file. Writing threads are spread across the shards, so that they don't all contend for a
+         * single file. Defaults to 1.
+         *
+         * @param shards
+         *            the number of shards
+         * @return the builder
+         */
+        public T setShards(Integer shards) {
+            if (shards != null) {
+                this.shards = shards;
+            }
+            return (T) this;
+        }
+        
         public FileAuditor build() throws IOException, URISyntaxException {
             return new FileAuditor(this);
         }
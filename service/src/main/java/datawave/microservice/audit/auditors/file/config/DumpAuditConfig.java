@@ -2,7 +2,6 @@ package datawave.microservice.audit.auditors.file.config;
 
 import java.util.List;
 
-import javax.annotation.Resource;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -11,11 +10,13 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import datawave.microservice.audit.auditors.MeteredAuditor;
 import datawave.microservice.audit.auditors.file.FileAuditor;
+import datawave.microservice.audit.common.AuditMessageBatchConsumer;
 import datawave.microservice.audit.common.AuditMessageConsumer;
 import datawave.microservice.audit.config.AuditProperties;
-import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Configures a FileAuditor to dump messages to the filesystem by request. This configuration is activated via the 'audit.auditors.dump.enabled' property. When
@@ -32,15 +33,19 @@ public class DumpAuditConfig {
         return new FileAuditProperties();
     }
     
-    @Resource(name = "msgHandlerAuditParams")
-    private AuditParameters msgHandlerAuditParams;
-    
     @Bean
-    public AuditMessageConsumer dumpAuditSink(Auditor dumpAuditor) {
-        return new AuditMessageConsumer(msgHandlerAuditParams, dumpAuditor);
+    @ConditionalOnProperty(name = "audit.auditors.dump.batch.enabled", havingValue = "false", matchIfMissing = true)
+    public AuditMessageConsumer dumpAuditSink(@Qualifier("meteredDumpAuditor") Auditor meteredDumpAuditor) {
+        return new AuditMessageConsumer(meteredDumpAuditor);
     }
     
-    @Bean
+    @Bean("dumpAuditSink")
+    @ConditionalOnProperty(name = "audit.auditors.dump.batch.enabled", havingValue = "true")
+    public AuditMessageBatchConsumer dumpAuditBatchSink(@Qualifier("meteredDumpAuditor") Auditor meteredDumpAuditor) {
+        return new AuditMessageBatchConsumer(meteredDumpAuditor);
+    }
+    
+    @Bean(destroyMethod = "close")
     public Auditor dumpAuditor(AuditProperties auditProperties, @Qualifier("dumpAuditProperties") FileAuditProperties dumpAuditProperties) throws Exception {
         List<String> fsConfigResources = (dumpAuditProperties.getFsConfigResources() != null) ? dumpAuditProperties.getFsConfigResources()
                         : auditProperties.getFsConfigResources();
@@ -56,8 +61,16 @@ public class DumpAuditConfig {
                 .setFsConfigResources(fsConfigResources)
                 .setMaxFileAgeSeconds(dumpAuditProperties.getMaxFileAgeSeconds())
                 .setMaxFileLengthMB(dumpAuditProperties.getMaxFileLengthMB())
+                .setDurability(dumpAuditProperties.getDurability())
+                .setCodec(dumpAuditProperties.getCodec())
                 .setPrefix((dumpAuditProperties.getPrefix() != null) ? dumpAuditProperties.getPrefix() : "dump")
+                .setShards(dumpAuditProperties.getShards())
                 .build();
         // @formatter:on
     }
+    
+    @Bean
+    public MeteredAuditor meteredDumpAuditor(@Qualifier("dumpAuditor") Auditor dumpAuditor, MeterRegistry meterRegistry) {
+        return new MeteredAuditor("dump", dumpAuditor, meterRegistry);
+    }
 }
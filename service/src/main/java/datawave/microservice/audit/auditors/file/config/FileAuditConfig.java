@@ -30,7 +30,7 @@ public class FileAuditConfig {
         return new FileAuditProperties();
     }
     
-    @Bean(name = "fileAuditor")
+    @Bean(name = "fileAuditor", destroyMethod = "close")
     public Auditor fileAuditor(AuditProperties auditProperties, @Qualifier("fileAuditProperties") FileAuditProperties fileAuditProperties) throws Exception {
         List<String> fsConfigResources = (fileAuditProperties.getFsConfigResources() != null) ? fileAuditProperties.getFsConfigResources()
                         : auditProperties.getFsConfigResources();
@@ -39,6 +39,9 @@ public class FileAuditConfig {
         if (subPath == null && fileAuditProperties.getSubPathEnvVar() != null)
             subPath = System.getenv(fileAuditProperties.getSubPathEnvVar());
         
+        // by default, give each audit fallback thread its own shard so that they never contend for a file
+        int shards = (fileAuditProperties.getShards() != null) ? fileAuditProperties.getShards() : auditProperties.getFallbackPoolSize();
+        
         // @formatter:off
         return new FileAuditor.Builder()
                 .setUser(fileAuditProperties.getUser())
@@ -47,7 +50,10 @@ public class FileAuditConfig {
                 .setFsConfigResources(fsConfigResources)
                 .setMaxFileAgeSeconds(fileAuditProperties.getMaxFileAgeSeconds())
                 .setMaxFileLengthMB(fileAuditProperties.getMaxFileLengthMB())
+                .setDurability(fileAuditProperties.getDurability())
+                .setCodec(fileAuditProperties.getCodec())
                 .setPrefix(fileAuditProperties.getPrefix())
+                .setShards(shards)
                 .build();
         // @formatter:on
     }
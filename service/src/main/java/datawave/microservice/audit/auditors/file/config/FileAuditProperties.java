@@ -4,9 +4,12 @@ import java.util.List;
 
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
 
 import org.springframework.validation.annotation.Validated;
 
+import datawave.microservice.audit.auditors.file.FileAuditor.Durability;
+
 @Validated
 public class FileAuditProperties {
     
@@ -24,6 +27,17 @@ public class FileAuditProperties {
     @DecimalMin("60")
     private Long maxFileAgeSeconds;
     
+    // what is done with the output stream after each group of audits is written (NONE, HFLUSH, or HSYNC)
+    private Durability durability;
+    
+    // the compression codec to use for audit files, by name (e.g. gzip, zstd, or snappy) or class name. if unset, files are not compressed
+    private String codec;
+    
+    // the number of shards, each of which writes to its own file. writing threads are spread across the shards. if unset, the fallback auditor uses one
+    // shard per audit fallback thread, and the dump auditor uses a single shard
+    @Positive
+    private Integer shards;
+    
     public String getUser() {
         return user;
     }
@@ -87,4 +101,28 @@ public class FileAuditProperties {
     public void setMaxFileAgeSeconds(Long maxFileAgeSeconds) {
         this.maxFileAgeSeconds = maxFileAgeSeconds;
     }
+    
+    public Durability getDurability() {
+        return durability;
+    }
+    
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+    
+    public String getCodec() {
+        return codec;
+    }
+    
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+    
+    public Integer getShards() {
+        return shards;
+    }
+    
+    public void setShards(Integer shards) {
+        this.shards = shards;
+    }
 }
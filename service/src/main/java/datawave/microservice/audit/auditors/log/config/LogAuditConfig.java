@@ -1,15 +1,16 @@
 package datawave.microservice.audit.auditors.log.config;
 
-import javax.annotation.Resource;
-
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import datawave.microservice.audit.auditors.MeteredAuditor;
 import datawave.microservice.audit.auditors.log.LogAuditor;
+import datawave.microservice.audit.common.AuditMessageBatchConsumer;
 import datawave.microservice.audit.common.AuditMessageConsumer;
-import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Configures the LogAuditor to process messages received by the audit service. This configuration is activated via the 'audit.auditors.log.enabled' property.
@@ -20,16 +21,25 @@ import datawave.webservice.common.audit.Auditor;
 @ConditionalOnProperty(name = "audit.auditors.log.enabled", havingValue = "true")
 public class LogAuditConfig {
     
-    @Resource(name = "msgHandlerAuditParams")
-    private AuditParameters msgHandlerAuditParams;
-    
     @Bean
-    public AuditMessageConsumer logAuditSink(Auditor logAuditor) {
-        return new AuditMessageConsumer(msgHandlerAuditParams, logAuditor);
+    @ConditionalOnProperty(name = "audit.auditors.log.batch.enabled", havingValue = "false", matchIfMissing = true)
+    public AuditMessageConsumer logAuditSink(@Qualifier("meteredLogAuditor") Auditor meteredLogAuditor) {
+        return new AuditMessageConsumer(meteredLogAuditor);
+    }
+    
+    @Bean("logAuditSink")
+    @ConditionalOnProperty(name = "audit.auditors.log.batch.enabled", havingValue = "true")
+    public AuditMessageBatchConsumer logAuditBatchSink(@Qualifier("meteredLogAuditor") Auditor meteredLogAuditor) {
+        return new AuditMessageBatchConsumer(meteredLogAuditor);
     }
     
     @Bean
     public Auditor logAuditor() {
         return new LogAuditor();
     }
+    
+    @Bean
+    public MeteredAuditor meteredLogAuditor(@Qualifier("logAuditor") Auditor logAuditor, MeterRegistry meterRegistry) {
+        return new MeteredAuditor("log", logAuditor, meterRegistry);
+    }
 }
@@ -0,0 +1,46 @@
+package datawave.microservice.audit.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor;
+
+/**
+ * A batch variant of the {@link AuditMessageConsumer}, for use with batch-mode bindings. The whole batch of audit messages is passed to the auditor in a single
+ * call, which allows the auditor to commit the batch in a single write. If the batch fails, an exception is thrown so that the entire batch is redelivered.
+ */
+public class AuditMessageBatchConsumer implements Consumer<List<AuditMessage>> {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private Auditor auditor;
+    
+    public AuditMessageBatchConsumer(Auditor auditor) {
+        this.auditor = auditor;
+    }
+    
+    @Override
+    public void accept(List<AuditMessage> auditMessages) {
+        try {
+            List<AuditParameters> auditParams = new ArrayList<>(auditMessages.size());
+            for (AuditMessage auditMessage : auditMessages) {
+                AuditParameters ap = AuditParameters.decode(auditMessage.getAuditParameters());
+                // log the audit message if the type is anything except NONE (even null)
+                if (!(ap.getAuditType() != null && ap.getAuditType().equals(Auditor.AuditType.NONE))) {
+                    auditParams.add(ap);
+                }
+            }
+            
+            if (!auditParams.isEmpty()) {
+                auditor.audit(auditParams);
+            }
+        } catch (Exception e) {
+            log.error("Error processing batch of {} audit messages: {}", auditMessages.size(), e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+}
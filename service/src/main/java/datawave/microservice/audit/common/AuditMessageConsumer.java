@@ -11,19 +11,16 @@ import datawave.webservice.common.audit.Auditor;
 public class AuditMessageConsumer implements Consumer<AuditMessage> {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     
-    private AuditParameters msgHandlerAuditParams;
-    
     private Auditor auditor;
     
-    public AuditMessageConsumer(AuditParameters auditParameters, Auditor auditor) {
-        this.msgHandlerAuditParams = auditParameters;
+    public AuditMessageConsumer(Auditor auditor) {
         this.auditor = auditor;
     }
     
     @Override
     public void accept(AuditMessage auditMessage) {
         try {
-            AuditParameters ap = msgHandlerAuditParams.fromMap(auditMessage.getAuditParameters());
+            AuditParameters ap = AuditParameters.decode(auditMessage.getAuditParameters());
             // log the audit message if the type is anything except NONE (even null)
             if (!(ap.getAuditType() != null && ap.getAuditType().equals(Auditor.AuditType.NONE))) {
                 auditor.audit(ap);
@@ -1,18 +1,157 @@
 package datawave.microservice.audit.common;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 import org.springframework.messaging.Message;
 
+import reactor.core.Scannable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
 
+/**
+ * Supplies audit messages to the audit binding. Messages are buffered in a bounded sink until the binder consumes them, and the {@link OverflowPolicy}
+ * determines what happens to a message which is sent while the buffer is full. Emit failures are counted by reason.
+ * <p>
+ * The sink rejects concurrent emissions rather than serializing them, so emissions are serialized by a lock, which is never held while blocking for room in
+ * the buffer.
+ */
 public class AuditMessageSupplier implements Supplier<Flux<Message<AuditMessage>>> {
-    private final Sinks.Many<Message<AuditMessage>> messagingSink = Sinks.many().multicast().onBackpressureBuffer();
     
+    // how long to wait between attempts to emit a message while blocking for room in the buffer
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    
+    /**
+     * Determines what is done with an audit message which is sent while the buffer is full.
+     */
+    public enum OverflowPolicy {
+        // the message is rejected immediately, and the audit is retried per the audit retry configuration
+        REJECT,
+        // the message is rejected immediately, and the audit is written to the filesystem without being retried (if file auditing is enabled)
+        SPILL,
+        // the calling thread waits, up to the block timeout, for room in the buffer before the message is rejected. threads which may not block (e.g. the
+        // audit retry scheduler) are rejected immediately, as with REJECT
+        BLOCK
+    }
+    
+    private final Sinks.Many<Message<AuditMessage>> messagingSink;
+    
+    private final int capacity;
+    
+    private final OverflowPolicy overflowPolicy;
+    
+    private final long blockTimeoutNanos;
+    
+    private final ReentrantLock emitLock = new ReentrantLock();
+    
+    // populated up front with every failure reason, so that it can be read without locking
+    private final Map<Sinks.EmitResult,LongAdder> emitFailures = new EnumMap<>(Sinks.EmitResult.class);
+    
+    public AuditMessageSupplier() {
+        this(Queues.SMALL_BUFFER_SIZE, OverflowPolicy.REJECT, 0L);
+    }
+    
+    /**
+     * @param capacity
+     *            the maximum number of messages to buffer while waiting for the binder
+     * @param overflowPolicy
+     *            what is done with a message which is sent while the buffer is full
+     * @param blockTimeoutMillis
+     *            with the BLOCK overflow policy, the maximum amount of time to wait for room in the buffer
+     */
+    public AuditMessageSupplier(int capacity, OverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+        this.messagingSink = Sinks.many().multicast().onBackpressureBuffer(capacity);
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        
+        for (Sinks.EmitResult result : Sinks.EmitResult.values()) {
+            if (result.isFailure()) {
+                emitFailures.put(result, new LongAdder());
+            }
+        }
+    }
+    
+    /**
+     * Emits the audit message to the audit binding, applying the overflow policy if the buffer is full.
+     *
+     * @param auditMessage
+     *            the audit message
+     * @return true if the message was buffered for the binder, false otherwise
+     */
     public boolean send(Message<AuditMessage> auditMessage) {
-        return messagingSink.tryEmitNext(auditMessage).isSuccess();
+        return send(auditMessage, true);
+    }
+    
+    /**
+     * Emits the audit message to the audit binding, applying the overflow policy if the buffer is full.
+     *
+     * @param auditMessage
+     *            the audit message
+     * @param mayBlock
+     *            whether the calling thread may wait for room in the buffer under the BLOCK overflow policy. Shared scheduler threads must pass false
+     * @return true if the message was buffered for the binder, false otherwise
+     */
+    public boolean send(Message<AuditMessage> auditMessage, boolean mayBlock) {
+        long deadline = 0L;
+        while (true) {
+            Sinks.EmitResult result;
+            emitLock.lock();
+            try {
+                result = messagingSink.tryEmitNext(auditMessage);
+            } finally {
+                emitLock.unlock();
+            }
+            
+            if (result.isSuccess()) {
+                return true;
+            }
+            
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW && overflowPolicy == OverflowPolicy.BLOCK && mayBlock) {
+                if (deadline == 0L) {
+                    deadline = System.nanoTime() + blockTimeoutNanos;
+                }
+                if (deadline - System.nanoTime() > 0) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    continue;
+                }
+            }
+            
+            emitFailures.get(result).increment();
+            return false;
+        }
+    }
+    
+    /**
+     * @return the number of audit messages which have been sent, but not yet consumed by the binder
+     */
+    public int getBufferedCount() {
+        return messagingSink.scanOrDefault(Scannable.Attr.BUFFERED, 0);
+    }
+    
+    /**
+     * @param reason
+     *            the emit failure reason
+     * @return the number of audit messages which could not be sent for the given reason
+     */
+    public long getEmitFailures(Sinks.EmitResult reason) {
+        LongAdder failures = emitFailures.get(reason);
+        return (failures != null) ? failures.sum() : 0L;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
     }
     
     @Override
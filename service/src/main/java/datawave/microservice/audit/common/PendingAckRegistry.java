@@ -0,0 +1,467 @@
+package datawave.microservice.audit.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tracks audit messages which are waiting for a producer confirm ack.
+ * <p>
+ * Each registered message is given a unique correlation ID, so audits which share a caller-supplied audit ID never collide. Pending acks are spread across a
+ * number of stripes by correlation ID, and are expired by a hashed timer wheel which is advanced by a single periodic task, rather than by scheduling a timeout
+ * for every message.
+ * <p>
+ * Once resolved, an ack is remembered for as long as its timeout, so that acks which arrive after the message timed out, or which arrive more than once, can be
+ * told apart from acks which don't belong to any message registered here. Each of these is counted by reason.
+ * <p>
+ * The number of unconfirmed messages in flight may be limited to a window. Once the window is full, reservations are queued, and each resolved ack hands its
+ * place in the window to the next reservation. By default, a message's future is completed as soon as it is resolved, but it may instead be held until every
+ * message registered before it has been resolved, so that callers are released in publish order.
+ */
+public class PendingAckRegistry implements AutoCloseable {
+    
+    private static final int WHEEL_SIZE = 512;
+    
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    
+    /**
+     * Determines the order in which the futures of resolved acks are completed.
+     */
+    public enum CompletionOrder {
+        // each future is completed as soon as its ack is resolved
+        UNORDERED,
+        // each future is completed once its ack, and every ack registered before it, has been resolved
+        ORDERED
+    }
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    // distinguishes the correlation IDs issued by this registry from any others
+    private final String correlationIdPrefix = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, Character.MAX_RADIX) + "-";
+    
+    private final AtomicLong nextSequence = new AtomicLong();
+    
+    private final Map<Long,PendingAck>[] stripes;
+    
+    private final int stripeMask;
+    
+    private final long tickNanos;
+    
+    private final long startTime = System.nanoTime();
+    
+    // newly registered acks, which are moved into the wheel on the next tick
+    private final Queue<PendingAck> registered = new ConcurrentLinkedQueue<>();
+    
+    // only accessed by the tick task
+    private final ArrayDeque<PendingAck>[] wheel;
+    
+    private long lastTick = -1;
+    
+    private final AtomicInteger numPending = new AtomicInteger();
+    
+    private final ScheduledExecutorService scheduler;
+    
+    // the maximum number of unresolved acks, or 0 if unlimited
+    private final int window;
+    
+    // locks are used rather than monitors throughout, so that virtual threads waiting on them do not pin their carrier threads
+    private final ReentrantLock windowLock = new ReentrantLock();
+    
+    // guarded by windowLock
+    private int numInFlight = 0;
+    
+    // guarded by windowLock
+    private final Deque<Reservation> reservations = new ArrayDeque<>();
+    
+    private final AtomicInteger numWaiting = new AtomicInteger();
+    
+    private final CompletionOrder completionOrder;
+    
+    private final ReentrantLock orderLock = new ReentrantLock();
+    
+    // with ORDERED completion, the acks which have not yet been completed, in the order they were registered. guarded by orderLock
+    private final Deque<PendingAck> uncompleted = new ArrayDeque<>();
+    
+    // whether a thread is completing the futures of resolved acks, with ORDERED completion. guarded by orderLock
+    private boolean completing = false;
+    
+    private final Counter lateCounter;
+    
+    private final Counter duplicateCounter;
+    
+    private final Counter orphanedCounter;
+    
+    private final ScheduledFuture<?> ticker;
+    
+    public PendingAckRegistry(ScheduledExecutorService scheduler, long tickMillis, int numStripes, MeterRegistry meterRegistry) {
+        this(scheduler, tickMillis, numStripes, 0, CompletionOrder.UNORDERED, meterRegistry);
+    }
+    
+    /**
+     * @param scheduler
+     *            the scheduler used to advance the timer wheel, and to release queued reservations
+     * @param tickMillis
+     *            the resolution of the timer wheel
+     * @param numStripes
+     *            the number of stripes to spread pending acks across, which is rounded up to a power of two
+     * @param window
+     *            the maximum number of unresolved acks, or 0 if unlimited
+     * @param completionOrder
+     *            the order in which the futures of resolved acks are completed
+     * @param meterRegistry
+     *            the meter registry
+     */
+    @SuppressWarnings("unchecked")
+    public PendingAckRegistry(ScheduledExecutorService scheduler, long tickMillis, int numStripes, int window, CompletionOrder completionOrder,
+                    MeterRegistry meterRegistry) {
+        this.scheduler = scheduler;
+        this.window = Math.max(window, 0);
+        this.completionOrder = completionOrder;
+        
+        int stripeCount = Integer.highestOneBit(Math.max(numStripes, 1));
+        if (stripeCount < numStripes)
+            stripeCount <<= 1;
+        this.stripes = new Map[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+            this.stripes[i] = new ConcurrentHashMap<>();
+        this.stripeMask = stripeCount - 1;
+        
+        this.wheel = new ArrayDeque[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            this.wheel[i] = new ArrayDeque<>();
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(tickMillis, 1L));
+        
+        // @formatter:off
+        Gauge.builder("audit.confirmAck.pending", numPending, AtomicInteger::get)
+                .description("The number of audits awaiting a producer confirm ack")
+                .register(meterRegistry);
+        Gauge.builder("audit.confirmAck.waiting", numWaiting, AtomicInteger::get)
+                .description("The number of audits waiting for room in the confirm ack window before being sent")
+                .register(meterRegistry);
+        // @formatter:on
+        this.lateCounter = unmatchedCounter(meterRegistry, "late");
+        this.duplicateCounter = unmatchedCounter(meterRegistry, "duplicate");
+        this.orphanedCounter = unmatchedCounter(meterRegistry, "orphaned");
+        
+        this.ticker = scheduler.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private static Counter unmatchedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("audit.confirmAck.unmatched").description("The number of producer confirm acks which did not complete a pending audit")
+                        .tag("reason", reason).register(meterRegistry);
+    }
+    
+    /**
+     * Reserves a place in the window for a message which is about to be sent, and which is expected to be acked within the given timeout.
+     * <p>
+     * If the window is full, the returned future is completed on the scheduler once an earlier ack is resolved. The confirm ack timeout starts once the
+     * reservation is granted.
+     *
+     * @param timeoutMillis
+     *            the confirm ack timeout
+     * @return a future which will be completed with the pending ack, whose correlation ID should be set on the message
+     */
+    public CompletableFuture<PendingAck> reserve(long timeoutMillis) {
+        if (window > 0) {
+            windowLock.lock();
+            try {
+                if (numInFlight >= window) {
+                    Reservation reservation = new Reservation(timeoutMillis);
+                    reservations.add(reservation);
+                    numWaiting.incrementAndGet();
+                    return reservation.future;
+                }
+                numInFlight++;
+            } finally {
+                windowLock.unlock();
+            }
+        }
+        return CompletableFuture.completedFuture(register(timeoutMillis));
+    }
+    
+    private PendingAck register(long timeoutMillis) {
+        PendingAck pendingAck;
+        if (completionOrder == CompletionOrder.ORDERED) {
+            // the sequence must match the order of the uncompleted queue
+            orderLock.lock();
+            try {
+                pendingAck = new PendingAck(nextSequence.getAndIncrement(), TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis, 0L)));
+                uncompleted.add(pendingAck);
+            } finally {
+                orderLock.unlock();
+            }
+        } else {
+            pendingAck = new PendingAck(nextSequence.getAndIncrement(), TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis, 0L)));
+        }
+        stripe(pendingAck.sequence).put(pendingAck.sequence, pendingAck);
+        numPending.incrementAndGet();
+        registered.add(pendingAck);
+        return pendingAck;
+    }
+    
+    /**
+     * Completes the pending ack with the given correlation ID.
+     *
+     * @param correlationId
+     *            the correlation ID from the confirm ack message
+     * @return true if a pending ack was completed, false if the ack was late, a duplicate, or unknown
+     */
+    public boolean acknowledge(String correlationId) {
+        long sequence = parseSequence(correlationId);
+        PendingAck pendingAck = (sequence >= 0) ? stripe(sequence).get(sequence) : null;
+        
+        if (pendingAck == null) {
+            orphanedCounter.increment();
+            return false;
+        }
+        
+        if (pendingAck.resolve(true))
+            return true;
+        
+        if (Boolean.TRUE.equals(pendingAck.outcome.get()))
+            duplicateCounter.increment();
+        else
+            lateCounter.increment();
+        return false;
+    }
+    
+    /**
+     * @return the number of acks which have been registered, but have not yet been acked, expired or cancelled
+     */
+    public int getNumPending() {
+        return numPending.get();
+    }
+    
+    /**
+     * @return the number of reservations waiting for room in the window
+     */
+    public int getNumWaiting() {
+        return numWaiting.get();
+    }
+    
+    // hands the resolved ack's place in the window to the next queued reservation, if there is one
+    private void releaseWindow() {
+        if (window > 0) {
+            Reservation reservation;
+            windowLock.lock();
+            try {
+                reservation = reservations.poll();
+                if (reservation == null) {
+                    numInFlight--;
+                    return;
+                }
+                numWaiting.decrementAndGet();
+            } finally {
+                windowLock.unlock();
+            }
+            
+            PendingAck pendingAck = register(reservation.timeoutMillis);
+            try {
+                scheduler.execute(() -> reservation.future.complete(pendingAck));
+            } catch (RejectedExecutionException e) {
+                reservation.future.complete(pendingAck);
+            }
+        }
+    }
+    
+    // completes the futures of every resolved ack at the head of the queue. the futures are completed outside of the order lock, so that their callbacks
+    // can't stall other threads which are resolving acks. only one thread completes futures at a time, so that they are completed in order even when acks are
+    // resolved on several threads at once. any other thread leaves its ack to be completed by that thread
+    private void completeInOrder() {
+        List<PendingAck> completed = new ArrayList<>();
+        while (true) {
+            orderLock.lock();
+            try {
+                if (completed.isEmpty()) {
+                    if (completing)
+                        return;
+                    completing = true;
+                }
+                completed.clear();
+                
+                PendingAck head;
+                while ((head = uncompleted.peek()) != null && head.outcome.get() != null)
+                    completed.add(uncompleted.poll());
+                
+                if (completed.isEmpty()) {
+                    completing = false;
+                    return;
+                }
+            } finally {
+                orderLock.unlock();
+            }
+            
+            for (PendingAck pendingAck : completed)
+                pendingAck.result.complete(pendingAck.outcome.get());
+        }
+    }
+    
+    private long parseSequence(String correlationId) {
+        if (correlationId != null && correlationId.startsWith(correlationIdPrefix)) {
+            try {
+                return Long.parseLong(correlationId.substring(correlationIdPrefix.length()), Character.MAX_RADIX);
+            } catch (NumberFormatException e) {
+                // not one of ours
+            }
+        }
+        return -1;
+    }
+    
+    private Map<Long,PendingAck> stripe(long sequence) {
+        return stripes[(int) (sequence & stripeMask)];
+    }
+    
+    private void tick() {
+        try {
+            long currentTick = (System.nanoTime() - startTime) / tickNanos;
+            
+            PendingAck pendingAck;
+            while ((pendingAck = registered.poll()) != null) {
+                long deadlineTick = (pendingAck.registeredTime - startTime + pendingAck.timeoutNanos + tickNanos - 1) / tickNanos;
+                schedule(pendingAck, Math.max(deadlineTick, lastTick + 1));
+            }
+            
+            while (lastTick < currentTick) {
+                lastTick++;
+                expire(wheel[(int) (lastTick & WHEEL_MASK)], lastTick);
+            }
+        } catch (Exception e) {
+            // an exception would stop the periodic task, and pending acks would never expire
+            log.error("Unable to expire pending confirm acks", e);
+        }
+    }
+    
+    private void schedule(PendingAck pendingAck, long deadlineTick) {
+        pendingAck.deadlineTick = deadlineTick;
+        wheel[(int) (deadlineTick & WHEEL_MASK)].add(pendingAck);
+    }
+    
+    // acks which are due are expired, and kept around for one more timeout period so that late acks can be recognized. acks which are due in a later round of
+    // the wheel are put back
+    private void expire(ArrayDeque<PendingAck> bucket, long tick) {
+        int bucketSize = bucket.size();
+        for (int i = 0; i < bucketSize; i++) {
+            PendingAck pendingAck = bucket.poll();
+            if (pendingAck.deadlineTick > tick) {
+                bucket.add(pendingAck);
+            } else if (!pendingAck.retained) {
+                pendingAck.resolve(false);
+                pendingAck.retained = true;
+                schedule(pendingAck, tick + Math.max((pendingAck.timeoutNanos + tickNanos - 1) / tickNanos, 1L));
+            } else {
+                stripe(pendingAck.sequence).remove(pendingAck.sequence, pendingAck);
+            }
+        }
+    }
+    
+    /**
+     * Stops advancing the timer wheel, and fails any acks which are still pending or waiting for room in the window.
+     */
+    @Override
+    public void close() {
+        ticker.cancel(false);
+        windowLock.lock();
+        try {
+            Reservation reservation;
+            while ((reservation = reservations.poll()) != null) {
+                numWaiting.decrementAndGet();
+                reservation.future.completeExceptionally(new IllegalStateException("Pending ack registry is closed"));
+            }
+        } finally {
+            windowLock.unlock();
+        }
+        for (Map<Long,PendingAck> stripe : stripes) {
+            for (PendingAck pendingAck : stripe.values())
+                pendingAck.resolve(false);
+            stripe.clear();
+        }
+    }
+    
+    /**
+     * A message which is waiting for a producer confirm ack.
+     */
+    public class PendingAck {
+        private final long sequence;
+        private final long registeredTime = System.nanoTime();
+        private final long timeoutNanos;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // set once, when the ack is received, expires or is cancelled
+        private final AtomicReference<Boolean> outcome = new AtomicReference<>();
+        
+        // only accessed by the tick task
+        private long deadlineTick;
+        private boolean retained = false;
+        
+        private PendingAck(long sequence, long timeoutNanos) {
+            this.sequence = sequence;
+            this.timeoutNanos = timeoutNanos;
+        }
+        
+        private boolean resolve(boolean acked) {
+            if (!outcome.compareAndSet(null, acked))
+                return false;
+            
+            numPending.decrementAndGet();
+            if (completionOrder == CompletionOrder.ORDERED)
+                completeInOrder();
+            else
+                result.complete(acked);
+            releaseWindow();
+            return true;
+        }
+        
+        public String getCorrelationId() {
+            return correlationIdPrefix + Long.toString(sequence, Character.MAX_RADIX);
+        }
+        
+        /**
+         * @return a future which is completed with true when the ack is received, or false if the ack times out or is cancelled. With ORDERED completion, the
+         *         future is not completed until every earlier ack has also been resolved
+         */
+        public CompletableFuture<Boolean> getResult() {
+            return result;
+        }
+        
+        /**
+         * Cancels the pending ack, for a message which could not be sent. Any ack which arrives for it afterwards is treated as unknown.
+         */
+        public void cancel() {
+            resolve(false);
+            stripe(sequence).remove(sequence, this);
+        }
+    }
+    
+    /**
+     * A request for a place in a full window.
+     */
+    private static class Reservation {
+        private final long timeoutMillis;
+        private final CompletableFuture<PendingAck> future = new CompletableFuture<>();
+        
+        private Reservation(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+}
@@ -4,22 +4,64 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import datawave.microservice.audit.common.AuditMessageSupplier.OverflowPolicy;
+import datawave.microservice.audit.common.PendingAckRegistry.CompletionOrder;
+
 @Validated
 @ConfigurationProperties(prefix = "audit")
 public class AuditProperties {
     private boolean confirmAckEnabled = true;
     private long confirmAckTimeoutMillis = 500L;
     
+    // the resolution of the timer wheel which expires confirm acks
+    @Positive
+    private long confirmAckTickMillis = 10L;
+    
+    // the number of stripes which pending confirm acks are spread across
+    @Positive
+    private int confirmAckStripes = 16;
+    
+    // the maximum number of audit messages awaiting a confirm ack, or 0 if unlimited. once the window is full, further audits wait before being sent
+    @PositiveOrZero
+    private int confirmAckWindow = 0;
+    
+    // the order in which callers are released once their confirm acks are resolved
+    @NotNull
+    private CompletionOrder confirmAckCompletionOrder = CompletionOrder.UNORDERED;
+    
     private List<String> fsConfigResources;
     
+    // whether to run REST requests and audit replays on virtual threads, which requires Java 21 or later
+    private boolean virtualThreadsEnabled = false;
+    
+    // the number of threads used to write audits to the filesystem when they could not be passed to the messaging infrastructure
+    @Positive
+    private int fallbackPoolSize = 4;
+    
+    // the maximum number of audits which will be accepted in a single bulk audit request
+    @Positive
+    private int maxBulkAudits = 10000;
+    
     @Valid
     private Retry retry = new Retry();
     
+    @Valid
+    private Source source = new Source();
+    
+    @Valid
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    
     public boolean isConfirmAckEnabled() {
         return confirmAckEnabled;
     }
@@ -36,6 +78,38 @@ public class AuditProperties {
         this.confirmAckTimeoutMillis = confirmAckTimeoutMillis;
     }
     
+    public long getConfirmAckTickMillis() {
+        return confirmAckTickMillis;
+    }
+    
+    public void setConfirmAckTickMillis(long confirmAckTickMillis) {
+        this.confirmAckTickMillis = confirmAckTickMillis;
+    }
+    
+    public int getConfirmAckStripes() {
+        return confirmAckStripes;
+    }
+    
+    public void setConfirmAckStripes(int confirmAckStripes) {
+        this.confirmAckStripes = confirmAckStripes;
+    }
+    
+    public int getConfirmAckWindow() {
+        return confirmAckWindow;
+    }
+    
+    public void setConfirmAckWindow(int confirmAckWindow) {
+        this.confirmAckWindow = confirmAckWindow;
+    }
+    
+    public CompletionOrder getConfirmAckCompletionOrder() {
+        return confirmAckCompletionOrder;
+    }
+    
+    public void setConfirmAckCompletionOrder(CompletionOrder confirmAckCompletionOrder) {
+        this.confirmAckCompletionOrder = confirmAckCompletionOrder;
+    }
+    
     public List<String> getFsConfigResources() {
         return fsConfigResources;
     }
@@ -44,6 +118,30 @@ public class AuditProperties {
         this.fsConfigResources = fsConfigResources;
     }
     
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+    
+    public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+    
+    public int getFallbackPoolSize() {
+        return fallbackPoolSize;
+    }
+    
+    public void setFallbackPoolSize(int fallbackPoolSize) {
+        this.fallbackPoolSize = fallbackPoolSize;
+    }
+    
+    public int getMaxBulkAudits() {
+        return maxBulkAudits;
+    }
+    
+    public void setMaxBulkAudits(int maxBulkAudits) {
+        this.maxBulkAudits = maxBulkAudits;
+    }
+    
     public Retry getRetry() {
         return retry;
     }
@@ -54,6 +152,26 @@ public class AuditProperties {
         this.retry = retry;
     }
     
+    public Source getSource() {
+        return source;
+    }
+    
+    public void setSource(Source source) {
+        if (source == null)
+            throw new NullPointerException("Audit Source properties must not be null.");
+        this.source = source;
+    }
+    
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        if (circuitBreaker == null)
+            throw new NullPointerException("Audit Circuit Breaker properties must not be null.");
+        this.circuitBreaker = circuitBreaker;
+    }
+    
     @Validated
     public static class Retry {
         @PositiveOrZero
@@ -62,9 +180,28 @@ public class AuditProperties {
         @PositiveOrZero
         private long failTimeoutMillis = TimeUnit.MINUTES.toMillis(5);
         
+        // the backoff before the first retry
         @PositiveOrZero
         private long backoffIntervalMillis = TimeUnit.SECONDS.toMillis(5);
         
+        // the factor by which the backoff grows with each retry. defaults to a fixed backoff, since a REST audit waits for every retry, and with the other
+        // defaults the worst case is then about 55 seconds. larger values (e.g. 2.0) let each retry wait longer, up to the fail timeout
+        @DecimalMin("1.0")
+        private double backoffMultiplier = 1.0;
+        
+        // the maximum backoff before any retry, not counting jitter
+        @PositiveOrZero
+        private long maxBackoffIntervalMillis = TimeUnit.MINUTES.toMillis(1);
+        
+        // the largest fraction of each backoff which may be randomly added to it, so that audits which failed together don't all retry together
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double backoffJitter = 0.2;
+        
+        // the number of threads used to schedule audit retries and confirm ack timeouts
+        @Positive
+        private int schedulerPoolSize = 2;
+        
         public int getMaxAttempts() {
             return maxAttempts;
         }
@@ -88,5 +225,152 @@ public class AuditProperties {
         public void setBackoffIntervalMillis(long backoffIntervalMillis) {
             this.backoffIntervalMillis = backoffIntervalMillis;
         }
+        
+        public double getBackoffMultiplier() {
+            return backoffMultiplier;
+        }
+        
+        public void setBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+        }
+        
+        public long getMaxBackoffIntervalMillis() {
+            return maxBackoffIntervalMillis;
+        }
+        
+        public void setMaxBackoffIntervalMillis(long maxBackoffIntervalMillis) {
+            this.maxBackoffIntervalMillis = maxBackoffIntervalMillis;
+        }
+        
+        public double getBackoffJitter() {
+            return backoffJitter;
+        }
+        
+        public void setBackoffJitter(double backoffJitter) {
+            this.backoffJitter = backoffJitter;
+        }
+        
+        public int getSchedulerPoolSize() {
+            return schedulerPoolSize;
+        }
+        
+        public void setSchedulerPoolSize(int schedulerPoolSize) {
+            this.schedulerPoolSize = schedulerPoolSize;
+        }
+    }
+    
+    @Validated
+    public static class Source {
+        // the maximum number of audit messages which will be buffered while waiting to be published
+        @Positive
+        private int capacity = 256;
+        
+        // what is done with an audit message which is sent while the buffer is full (REJECT, SPILL, or BLOCK)
+        @NotNull
+        private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+        
+        // with the BLOCK overflow policy, the maximum amount of time to wait for room in the buffer
+        @PositiveOrZero
+        private long blockTimeoutMillis = 100L;
+        
+        public int getCapacity() {
+            return capacity;
+        }
+        
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+        
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+        
+        public long getBlockTimeoutMillis() {
+            return blockTimeoutMillis;
+        }
+        
+        public void setBlockTimeoutMillis(long blockTimeoutMillis) {
+            this.blockTimeoutMillis = blockTimeoutMillis;
+        }
+    }
+    
+    @Validated
+    public static class CircuitBreaker {
+        // whether audits go straight to the filesystem, without being retried, while the messaging infrastructure appears to be down. without a filesystem
+        // fallback, audits are still retried while the circuit is open
+        private boolean enabled = true;
+        
+        // the number of recent send attempts used to compute the failure rate
+        @Positive
+        private int windowSize = 100;
+        
+        // the minimum number of recent send attempts before the circuit may open
+        @Positive
+        private int minimumAttempts = 20;
+        
+        // the percentage of recent send attempts which must fail for the circuit to open
+        @Min(1)
+        @Max(100)
+        private int failureRateThreshold = 50;
+        
+        // how long the circuit stays open before trial send attempts are allowed
+        @PositiveOrZero
+        private long openDurationMillis = TimeUnit.SECONDS.toMillis(5);
+        
+        // the maximum number of trial send attempts in progress while the circuit is half open
+        @Positive
+        private int halfOpenAttempts = 5;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getWindowSize() {
+            return windowSize;
+        }
+        
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+        
+        public int getMinimumAttempts() {
+            return minimumAttempts;
+        }
+        
+        public void setMinimumAttempts(int minimumAttempts) {
+            this.minimumAttempts = minimumAttempts;
+        }
+        
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+        
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+        
+        public long getOpenDurationMillis() {
+            return openDurationMillis;
+        }
+        
+        public void setOpenDurationMillis(long openDurationMillis) {
+            this.openDurationMillis = openDurationMillis;
+        }
+        
+        public int getHalfOpenAttempts() {
+            return halfOpenAttempts;
+        }
+        
+        public void setHalfOpenAttempts(int halfOpenAttempts) {
+            this.halfOpenAttempts = halfOpenAttempts;
+        }
     }
 }
@@ -1,10 +1,19 @@
 package datawave.microservice.audit.config;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import datawave.microservice.audit.common.AuditMessageSupplier;
+import datawave.microservice.audit.common.PendingAckRegistry;
+import datawave.microservice.audit.health.AuditCircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Configuration for the audit service.
@@ -16,7 +25,43 @@ import datawave.microservice.audit.common.AuditMessageSupplier;
 @EnableConfigurationProperties(AuditProperties.class)
 public class AuditServiceConfig {
     @Bean
-    public AuditMessageSupplier auditSource() {
-        return new AuditMessageSupplier();
+    public AuditMessageSupplier auditSource(AuditProperties auditProperties) {
+        AuditProperties.Source source = auditProperties.getSource();
+        return new AuditMessageSupplier(source.getCapacity(), source.getOverflowPolicy(), source.getBlockTimeoutMillis());
+    }
+    
+    /**
+     * Used to schedule audit retries and to expire confirm acks, so that request threads are never parked while waiting on the messaging infrastructure.
+     */
+    @Bean(name = "auditRetryScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService auditRetryScheduler(AuditProperties auditProperties) {
+        return Executors.newScheduledThreadPool(auditProperties.getRetry().getSchedulerPoolSize(), new CustomizableThreadFactory("audit-retry-"));
+    }
+    
+    /**
+     * Used to track audits which are waiting for a producer confirm ack. Confirm ack timeouts are expired by a timer wheel which is advanced on the audit retry
+     * scheduler, and audits which are waiting for room in the confirm ack window are released there.
+     */
+    @Bean
+    public PendingAckRegistry pendingAckRegistry(AuditProperties auditProperties,
+                    @Qualifier("auditRetryScheduler") ScheduledExecutorService auditRetryScheduler, MeterRegistry meterRegistry) {
+        return new PendingAckRegistry(auditRetryScheduler, auditProperties.getConfirmAckTickMillis(), auditProperties.getConfirmAckStripes(),
+                        auditProperties.getConfirmAckWindow(), auditProperties.getConfirmAckCompletionOrder(), meterRegistry);
+    }
+    
+    /**
+     * Used to send audits straight to the filesystem while too many recent send attempts have failed.
+     */
+    @Bean
+    public AuditCircuitBreaker auditCircuitBreaker(AuditProperties auditProperties, MeterRegistry meterRegistry) {
+        return new AuditCircuitBreaker(auditProperties.getCircuitBreaker(), meterRegistry);
+    }
+    
+    /**
+     * Used to write audits to the filesystem when they could not be passed to the messaging infrastructure.
+     */
+    @Bean(name = "auditFallbackExecutor", destroyMethod = "shutdown")
+    public ExecutorService auditFallbackExecutor(AuditProperties auditProperties) {
+        return Executors.newFixedThreadPool(auditProperties.getFallbackPoolSize(), new CustomizableThreadFactory("audit-fallback-"));
     }
 }
@@ -0,0 +1,37 @@
+package datawave.microservice.audit.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import datawave.microservice.audit.common.VirtualThreads;
+
+/**
+ * Configuration for running the audit service on virtual threads, which requires Java 21 or later.
+ * <p>
+ * When enabled, Undertow dispatches each servlet request to a new virtual thread rather than to its worker pool, and the audit replay executor runs replays
+ * on virtual threads (see ReplayConfig).
+ */
+@Configuration
+@ConditionalOnProperty(value = "audit.virtualThreadsEnabled", havingValue = "true")
+public class VirtualThreadConfig {
+    
+    /**
+     * Used to run servlet requests, each on its own virtual thread.
+     */
+    @Bean(name = "auditRequestExecutor", destroyMethod = "shutdown")
+    public ExecutorService auditRequestExecutor() {
+        return VirtualThreads.newThreadPerTaskExecutor("audit-request-");
+    }
+    
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> virtualThreadUndertowCustomizer(
+                    @Qualifier("auditRequestExecutor") ExecutorService auditRequestExecutor) {
+        return factory -> factory.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.setExecutor(auditRequestExecutor));
+    }
+}
@@ -0,0 +1,168 @@
+package datawave.microservice.audit.health;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.audit.config.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A circuit breaker shared by every audit, which decides whether an audit should be sent to the messaging infrastructure or go straight to the filesystem.
+ * <p>
+ * The circuit opens when too many recent send attempts have failed, e.g. due to confirm ack timeouts, or because the {@link HealthChecker} reported that the
+ * messaging infrastructure was unhealthy. While it is open, send attempts are rejected, so audits go to the filesystem instead of each using up the full
+ * retry budget. Once the open duration has passed, the circuit is half open, and a limited number of trial send attempts are allowed. The first trial to
+ * succeed closes the circuit, and the first trial to fail opens it again.
+ */
+public class AuditCircuitBreaker {
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final AuditProperties.CircuitBreaker properties;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // the outcomes of recent send attempts, where true is a failure. guarded by lock
+    private final boolean[] window;
+    private int windowIndex = 0;
+    private int numAttempts = 0;
+    private int numFailures = 0;
+    
+    private volatile State state = State.CLOSED;
+    
+    private volatile long openedTime;
+    
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    
+    private final Counter rejectedCounter;
+    
+    /**
+     * @param properties
+     *            the circuit breaker properties
+     * @param meterRegistry
+     *            the meter registry
+     */
+    public AuditCircuitBreaker(AuditProperties.CircuitBreaker properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.window = new boolean[properties.getWindowSize()];
+        
+        // @formatter:off
+        Gauge.builder("audit.circuitBreaker.state", this, circuitBreaker -> circuitBreaker.getState().ordinal())
+                .description("The state of the audit circuit breaker (0 = closed, 1 = open, 2 = half open)")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("audit.circuitBreaker.rejected")
+                .description("The number of audit send attempts rejected by the audit circuit breaker")
+                .register(meterRegistry);
+        // @formatter:on
+    }
+    
+    /**
+     * Determines whether an audit may be sent to the messaging infrastructure. If so, the outcome must be reported via {@link #onSuccess()} or
+     * {@link #onFailure()}.
+     *
+     * @return true if the audit may be sent, false if it should go straight to the filesystem
+     */
+    public boolean tryAcquire() {
+        if (!properties.isEnabled())
+            return true;
+        
+        if (state == State.OPEN && (System.currentTimeMillis() - openedTime) >= properties.getOpenDurationMillis()) {
+            lock.lock();
+            try {
+                if (state == State.OPEN && (System.currentTimeMillis() - openedTime) >= properties.getOpenDurationMillis()) {
+                    halfOpenPermits.set(properties.getHalfOpenAttempts());
+                    transition(State.HALF_OPEN);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        State current = state;
+        if (current == State.CLOSED || (current == State.HALF_OPEN && halfOpenPermits.getAndDecrement() > 0))
+            return true;
+        
+        rejectedCounter.increment();
+        return false;
+    }
+    
+    /**
+     * Records a successful send attempt.
+     */
+    public void onSuccess() {
+        record(false);
+    }
+    
+    /**
+     * Records a failed send attempt.
+     */
+    public void onFailure() {
+        record(true);
+    }
+    
+    private void record(boolean failure) {
+        if (!properties.isEnabled())
+            return;
+        
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                if (failure)
+                    open();
+                else
+                    transition(State.CLOSED);
+            } else if (state == State.CLOSED) {
+                if (numAttempts == window.length) {
+                    if (window[windowIndex])
+                        numFailures--;
+                } else {
+                    numAttempts++;
+                }
+                window[windowIndex] = failure;
+                if (failure)
+                    numFailures++;
+                windowIndex = (windowIndex + 1) % window.length;
+                
+                if (numAttempts >= properties.getMinimumAttempts() && (numFailures * 100L) >= ((long) properties.getFailureRateThreshold() * numAttempts))
+                    open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // must be called while holding the lock
+    private void open() {
+        openedTime = System.currentTimeMillis();
+        transition(State.OPEN);
+    }
+    
+    // must be called while holding the lock
+    private void transition(State newState) {
+        if (newState == State.OPEN)
+            log.warn("Audit circuit breaker opened after {} of {} recent send attempts failed", numFailures, numAttempts);
+        else
+            log.info("Audit circuit breaker is now {}", newState);
+        
+        // every transition starts a new window of send attempts
+        Arrays.fill(window, false);
+        windowIndex = 0;
+        numAttempts = 0;
+        numFailures = 0;
+        state = newState;
+    }
+    
+    public State getState() {
+        return state;
+    }
+}
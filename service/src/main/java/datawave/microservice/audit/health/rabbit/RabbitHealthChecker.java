@@ -10,6 +10,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import org.apache.http.client.utils.URIBuilder;
@@ -65,6 +67,10 @@ public class RabbitHealthChecker implements HealthChecker, HealthIndicator {
     
     private final RabbitHealthProperties rabbitHealthProperties;
     
+    // guards the health state. a lock is used rather than a monitor, since a virtual thread which blocks on a monitor, e.g. while a health check is calling the
+    // management api, pins its carrier thread
+    private final ReadWriteLock healthLock = new ReentrantReadWriteLock();
+    
     // rabbit cluster info
     private String host;
     private String username;
@@ -224,8 +230,8 @@ public class RabbitHealthChecker implements HealthChecker, HealthIndicator {
     /**
      * Performs a health check of RabbitMQ.
      * <p>
-     * This method is synchronized with the isHealthy method to ensure that the health check is given time to complete before deciding whether to accept an
-     * audit request via the {@link AuditController}
+     * This method holds the health write lock, and the isHealthy method the read lock, to ensure that the health check is given time to complete before
+     * deciding whether to accept an audit request via the {@link AuditController}
      * <p>
      * RabbitMQ is considered to be healthy if the cluster, exchanges, queues, and bindings are configured as specified in the {@link RabbitHealthProperties}.
      * If we are not able to determine the health of the cluster, exchanges, queues, and bindings (perhaps due to the management API being unavailable, or the
@@ -236,7 +242,8 @@ public class RabbitHealthChecker implements HealthChecker, HealthIndicator {
         initRabbitClient();
         
         if (rabbitClient != null) {
-            synchronized (this) {
+            healthLock.writeLock().lock();
+            try {
                 log.trace("RabbitMQ Health Check - Started");
                 
                 boolean wasHealthy = isHealthy();
@@ -286,6 +293,8 @@ public class RabbitHealthChecker implements HealthChecker, HealthIndicator {
                 }
                 
                 log.trace("RabbitMQ Health Check - Complete");
+            } finally {
+                healthLock.writeLock().unlock();
             }
         }
     }
@@ -567,15 +576,18 @@ public class RabbitHealthChecker implements HealthChecker, HealthIndicator {
     /**
      * Used to determine whether RabbitMQ is healthy.
      * <p>
-     * This method is synchronized with the runHealthCheck method to ensure that the health check is given time to complete before deciding whether to accept an
-     * audit request via the {@link AuditController}
+     * This method holds the health read lock, which is excluded by the runHealthCheck method, to ensure that the health check is given time to complete before
+     * deciding whether to accept an audit request via the {@link AuditController}
      *
      * @return true if RabbitMQ is healthy, false if RabbitMQ is unhealthy
      */
     @Override
     public boolean isHealthy() {
-        synchronized (this) {
+        healthLock.readLock().lock();
+        try {
             return rabbitClient != null && clusterHealthy && exchangesHealthy && queuesHealthy && bindingsHealthy;
+        } finally {
+            healthLock.readLock().unlock();
         }
     }
     
@@ -6,13 +6,13 @@ import static datawave.microservice.audit.replay.status.Status.ReplayState.STOPP
 import static io.undertow.util.StatusCodes.UNPROCESSABLE_ENTITY;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletResponse;
@@ -40,6 +40,7 @@ import datawave.microservice.audit.AuditController;
 import datawave.microservice.audit.config.AuditProperties;
 import datawave.microservice.audit.replay.config.ReplayProperties;
 import datawave.microservice.audit.replay.remote.Request;
+import datawave.microservice.audit.replay.runner.DistributedReplay;
 import datawave.microservice.audit.replay.runner.ReplayTask;
 import datawave.microservice.audit.replay.runner.RunningReplay;
 import datawave.microservice.audit.replay.status.Status;
@@ -67,8 +68,6 @@ public class ReplayController {
     
     private final AuditController auditController;
     
-    private final AuditParameters msgHandlerAuditParams;
-    
     private final AuditProperties auditProperties;
     
     private final ReplayProperties replayProperties;
@@ -81,21 +80,24 @@ public class ReplayController {
     
     private final BusProperties busProperties;
     
-    private final Map<String,RunningReplay> runningReplays = new HashMap<>();
+    // written by the idle sweeper as well as by request threads
+    private final Map<String,RunningReplay> runningReplays = new ConcurrentHashMap<>();
     
     private final Configuration config = new Configuration();
     
+    private final ScheduledExecutorService idleCheckScheduler;
+    
     public ReplayController(AuditProperties auditProperties, ReplayProperties replayProperties, AuditController auditController,
-                    @Qualifier("msgHandlerAuditParams") AuditParameters msgHandlerAuditParams, ThreadPoolTaskExecutor auditReplayExecutor,
-                    StatusCache statusCache, ApplicationContext appCtx, BusProperties busProperties) {
+                    ThreadPoolTaskExecutor auditReplayExecutor, StatusCache statusCache, ApplicationContext appCtx, BusProperties busProperties,
+                    @Qualifier("auditReplayIdleCheckScheduler") ScheduledExecutorService idleCheckScheduler) {
         this.auditProperties = auditProperties;
         this.replayProperties = replayProperties;
         this.auditController = auditController;
-        this.msgHandlerAuditParams = msgHandlerAuditParams;
         this.auditReplayExecutor = auditReplayExecutor;
         this.statusCache = statusCache;
         this.appCtx = appCtx;
         this.busProperties = busProperties;
+        this.idleCheckScheduler = idleCheckScheduler;
         init();
     }
     
@@ -104,6 +106,9 @@ public class ReplayController {
             for (String resource : auditProperties.getFsConfigResources())
                 config.addResource(new Path(resource));
         }
+        
+        long idleCheckInterval = replayProperties.getIdleCheckIntervalMillis();
+        idleCheckScheduler.scheduleWithFixedDelay(this::sweepIdleReplays, idleCheckInterval, idleCheckInterval, TimeUnit.MILLISECONDS);
     }
     
     /**
@@ -115,6 +120,8 @@ public class ReplayController {
      *            The number of messages to send per second
      * @param replayUnfinishedFiles
      *            Indicates whether files from an unfinished audit replay should be included
+     * @param parallelism
+     *            The number of files to replay concurrently
      * @return the audit replay id
      */
     @Operation(summary = "Creates an audit replay request.")
@@ -125,24 +132,35 @@ public class ReplayController {
                                     schema = @Schema(defaultValue = "100")) @RequestParam(defaultValue = "100") Long sendRate,
                     @Parameter(description = "Indicates whether files from an unfinished audit replay should be included",
                                     schema = @Schema(defaultValue = "false")) @RequestParam(defaultValue = "false") boolean replayUnfinishedFiles,
+                    @Parameter(description = "The number of files to replay concurrently. Defaults to the configured parallelism") @RequestParam(
+                                    required = false) Integer parallelism,
+                    @Parameter(description = "Indicates whether the files should be shared out between all of the audit service instances",
+                                    schema = @Schema(defaultValue = "false")) @RequestParam(defaultValue = "false") boolean distributed,
                     HttpServletResponse response) {
         
-        log.info("Creating audit replay with params: pathUri={}, sendRate={}, replayUnfinishedFiles={}", pathUri, sendRate, replayUnfinishedFiles);
+        if (parallelism == null)
+            parallelism = replayProperties.getParallelism();
+        
+        log.info("Creating audit replay with params: pathUri={}, sendRate={}, replayUnfinishedFiles={}, parallelism={}, distributed={}", pathUri, sendRate,
+                        replayUnfinishedFiles, parallelism, distributed);
         
         String resp;
         
-        // only create if the send rate is valid
-        if (sendRate >= 0) {
+        // only create if the send rate and parallelism are valid
+        if (sendRate < 0) {
+            response.setStatus(UNPROCESSABLE_ENTITY);
+            resp = "Send rate must be >= 0";
+        } else if (parallelism <= 0 || parallelism > replayProperties.getMaxParallelism()) {
+            response.setStatus(UNPROCESSABLE_ENTITY);
+            resp = "Parallelism must be > 0 and <= " + replayProperties.getMaxParallelism();
+        } else {
             String id = UUID.randomUUID().toString();
             
-            Status status = statusCache.create(id, pathUri, sendRate, replayUnfinishedFiles);
+            Status status = statusCache.create(id, pathUri, sendRate, parallelism, distributed, replayUnfinishedFiles);
             
             log.info("Created audit replay [{}]", status);
             
             resp = status.getId();
-        } else {
-            response.setStatus(UNPROCESSABLE_ENTITY);
-            resp = "Send rate must be >= 0";
         }
         
         return resp;
@@ -157,6 +175,8 @@ public class ReplayController {
      *            The number of messages to send per second
      * @param replayUnfinishedFiles
      *            Indicates whether files from an unfinished audit replay should be included
+     * @param parallelism
+     *            The number of files to replay concurrently
      * @return the audit replay id
      */
     @Operation(summary = "Creates an audit replay request, and starts it.")
@@ -168,23 +188,42 @@ public class ReplayController {
                                     schema = @Schema(defaultValue = "100")) @RequestParam(defaultValue = "100") Long sendRate,
                     @Parameter(description = "Indicates whether files from an unfinished audit replay should be included",
                                     schema = @Schema(defaultValue = "false")) @RequestParam(defaultValue = "false") boolean replayUnfinishedFiles,
+                    @Parameter(description = "The number of files to replay concurrently. Defaults to the configured parallelism") @RequestParam(
+                                    required = false) Integer parallelism,
+                    @Parameter(description = "Indicates whether the files should be shared out between all of the audit service instances",
+                                    schema = @Schema(defaultValue = "false")) @RequestParam(defaultValue = "false") boolean distributed,
                     HttpServletResponse response) {
         
-        log.info("Creating and starting audit replay with params: pathUri={}, sendRate={}, replayUnfinishedFiles={}", pathUri, sendRate, replayUnfinishedFiles);
+        if (parallelism == null)
+            parallelism = replayProperties.getParallelism();
+        
+        log.info("Creating and starting audit replay with params: pathUri={}, sendRate={}, replayUnfinishedFiles={}, parallelism={}, distributed={}", pathUri,
+                        sendRate, replayUnfinishedFiles, parallelism, distributed);
         
         String resp;
         
-        // only create if the send rate is valid
-        if (sendRate >= 0) {
+        // only create if the send rate and parallelism are valid
+        if (sendRate < 0) {
+            response.setStatus(UNPROCESSABLE_ENTITY);
+            resp = "Send rate must be >= 0";
+        } else if (parallelism <= 0 || parallelism > replayProperties.getMaxParallelism()) {
+            response.setStatus(UNPROCESSABLE_ENTITY);
+            resp = "Parallelism must be > 0 and <= " + replayProperties.getMaxParallelism();
+        } else {
             String id = UUID.randomUUID().toString();
             
             Status status;
             if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
                 try {
-                    status = statusCache.create(id, pathUri, sendRate, replayUnfinishedFiles);
-                    runningReplays.put(id, start(status));
-                    
-                    log.info("Created and started audit replay [{}]", status);
+                    status = statusCache.create(id, pathUri, sendRate, parallelism, distributed, replayUnfinishedFiles);
+                    RunningReplay replay = start(status);
+                    if (replay != null) {
+                        runningReplays.put(id, replay);
+                        
+                        log.info("Created and started audit replay [{}]", status);
+                    } else {
+                        log.warn("Created audit replay [{}], but was unable to start it", status);
+                    }
                     
                     resp = id;
                 } finally {
@@ -194,9 +233,6 @@ public class ReplayController {
                 response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 resp = "Failed to acquire lock on status cache";
             }
-        } else {
-            response.setStatus(UNPROCESSABLE_ENTITY);
-            resp = "Send rate must be >= 0";
         }
         
         log.info(resp);
@@ -222,7 +258,7 @@ public class ReplayController {
         
         if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
             try {
-                Status status = status(id, replayProperties.isPublishEvents());
+                Status status = statusCache.retrieve(id);
                 
                 // if the state is 'created', we can run the replay
                 if (status != null) {
@@ -257,14 +293,34 @@ public class ReplayController {
     
     private RunningReplay start(Status status) {
         status.setState(RUNNING);
-        statusCache.update(status);
+        status.setOwner(busProperties.getId());
+        statusCache.updateHeader(status);
+        
+        RunningReplay replay = submit(status, true);
+        
+        // ask the other audit services to take a share of the files
+        if (replay != null && status.isDistributed() && replayProperties.isPublishEvents())
+            appCtx.publishEvent(new AuditReplayRemoteRequestEvent(this, busProperties.getId(), Request.join(status.getId())));
+        
+        return replay;
+    }
+    
+    private RunningReplay submit(Status status, boolean initiator) {
+        DistributedReplay distributedReplay = null;
+        if (status.isDistributed())
+            distributedReplay = new DistributedReplay(status.getId(), busProperties.getId(), statusCache, replayProperties, initiator);
         
         ReplayTask replayTask = null;
         try {
-            replayTask = new ReplayTask(config, status, statusCache, replayProperties) {
+            replayTask = new ReplayTask(config, status, statusCache, replayProperties, distributedReplay) {
                 @Override
                 protected boolean audit(Map<String,String> auditParamsMap) {
-                    return auditController.audit(msgHandlerAuditParams.fromMap(auditParamsMap));
+                    return auditController.audit(AuditParameters.decode(auditParamsMap));
+                }
+                
+                @Override
+                protected CompletableFuture<Boolean> auditAsync(Map<String,String> auditParamsMap) {
+                    return auditController.auditAsync(AuditParameters.decode(auditParamsMap));
                 }
             };
         } catch (Exception e) {
@@ -280,7 +336,7 @@ public class ReplayController {
             }
             
             if (future != null)
-                return new RunningReplay(status, future);
+                return new RunningReplay(status, future, replayTask);
         }
         
         return null;
@@ -336,38 +392,79 @@ public class ReplayController {
         
         log.info("Getting status for audit replay with id {}", id);
         
-        Status status = null;
-        if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
-            try {
-                status = status(id, replayProperties.isPublishEvents());
-            } finally {
-                statusCache.unlock(id);
-            }
-        } else {
-            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to acquire lock on status cache");
-        }
-        
+        // status reads don't need the lock
+        Status status = statusCache.retrieve(id);
         if (status == null)
             response.sendError(HttpServletResponse.SC_NOT_FOUND, "No audit replay found with id " + id);
         
         return status;
     }
     
-    private Status status(String id, boolean publishEnabled) {
-        Status status = statusCache.retrieve(id);
-        if (status != null)
-            return idleCheck(status, publishEnabled);
-        return null;
+    /**
+     * Runs periodically to sweep the status cache for audit replays whose owner has not updated their status within the idle timeout. Owners record a heartbeat
+     * whether or not the replay is making progress, so an idle replay is one whose owner has gone away or hung. Depending on the configured idle action, these
+     * are either stopped, or reclaimed and resumed by this instance. Only the headers are scanned, and the full status is only read for the replays which
+     * appear to be idle, once they are locked.
+     */
+    private void sweepIdleReplays() {
+        try {
+            for (Status header : statusCache.retrieveAllHeaders()) {
+                String id = header.getId();
+                if (isIdle(header) && statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
+                    try {
+                        // make sure it's still idle now that we hold the lock
+                        Status latest = statusCache.retrieve(id);
+                        if (latest != null && isIdle(latest))
+                            handleIdle(latest);
+                    } finally {
+                        statusCache.unlock(id);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to sweep for idle audit replays", e);
+        }
     }
     
-    private Status idleCheck(Status status, boolean publishEnabled) {
-        // if the replay is RUNNING, and this hasn't been updated within the timeout interval, send out a stop request
-        if (status.getState() == RUNNING && (System.currentTimeMillis() - status.getLastUpdated().getTime()) > replayProperties.getIdleTimeoutMillis()) {
-            statusCache.update(status);
-            stop(status, publishEnabled);
+    private void handleIdle(Status status) {
+        // an idle replay owned by this instance has a hung task, so there is nothing to reclaim it from
+        if (replayProperties.getIdleAction() == ReplayProperties.IdleAction.RECLAIM && !busProperties.getId().equals(status.getOwner())) {
+            reclaim(status);
+        } else {
+            log.info("Stopping idle audit replay with id {}", status.getId());
+            if (runningReplays.containsKey(status.getId())) {
+                stop(status, replayProperties.isPublishEvents());
+            } else {
+                // the owner has gone away, so nobody else will mark the replay stopped. the event is only a courtesy, in case the owner is still alive
+                status.setState(STOPPED);
+                statusCache.updateHeader(status);
+                if (replayProperties.isPublishEvents())
+                    appCtx.publishEvent(new AuditReplayRemoteRequestEvent(this, busProperties.getId(), Request.stop(status.getId())));
+            }
         }
+    }
+    
+    private void reclaim(Status status) {
+        log.info("Reclaiming idle audit replay with id {} from instance {}", status.getId(), status.getOwner());
         
-        return status;
+        RunningReplay replay = start(status);
+        if (replay != null) {
+            runningReplays.put(status.getId(), replay);
+            
+            // if the previous owner is still alive, tell it to stop. it will see that we now own the replay, and won't overwrite our progress. the files of a
+            // distributed replay are claimed individually, so their claims are left to lapse instead
+            if (!status.isDistributed() && replayProperties.isPublishEvents())
+                appCtx.publishEvent(new AuditReplayRemoteRequestEvent(this, busProperties.getId(), Request.stop(status.getId())));
+        } else {
+            // we couldn't take it over, so stop it instead
+            status.setState(STOPPED);
+            statusCache.updateHeader(status);
+        }
+    }
+    
+    // the owner heartbeats even while the replay is paused, so a replay is only idle once its owner stops heartbeating
+    private boolean isIdle(Status status) {
+        return status.getState() == RUNNING && (System.currentTimeMillis() - status.getLastUpdated().getTime()) > replayProperties.getIdleTimeoutMillis();
     }
     
     /**
@@ -381,21 +478,8 @@ public class ReplayController {
         
         log.info("Getting status for all audit replays");
         
-        List<Status> statuses = new ArrayList<>();
-        List<String> statusIds = statusCache.retrieveAllIds();
-        if (statusIds != null) {
-            for (String statusId : statusIds) {
-                if (statusCache.tryLock(statusId, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
-                    try {
-                        statuses.add(status(statusId, replayProperties.isPublishEvents()));
-                    } finally {
-                        statusCache.unlock(statusId);
-                    }
-                }
-            }
-        }
-        statuses.removeIf(Objects::isNull);
-        return statuses;
+        // status reads don't need the lock
+        return statusCache.retrieveAll();
     }
     
     /**
@@ -423,7 +507,7 @@ public class ReplayController {
             if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
                 try {
                     // pull the replay status from cache to ensure it exists
-                    Status status = status(id, replayProperties.isPublishEvents());
+                    Status status = statusCache.retrieve(id);
                     if (status != null) {
                         update(status, sendRate, replayProperties.isPublishEvents());
                         resp = "Updated audit replay with id " + id;
@@ -454,13 +538,17 @@ public class ReplayController {
             RunningReplay replay = runningReplays.get(status.getId());
             if (replay != null) {
                 replay.getStatus().setSendRate(sendRate);
-            } else if (publishEvent) {
+                replay.getRateLimiter().signal();
+            }
+            
+            // a distributed replay is running on the other audit services too
+            if ((replay == null || status.isDistributed()) && publishEvent) {
                 appCtx.publishEvent(new AuditReplayRemoteRequestEvent(this, busProperties.getId(), Request.update(status.getId(), sendRate)));
             }
         } else {
             // just update the cache if it's not running
             status.setSendRate(sendRate);
-            statusCache.update(status);
+            statusCache.updateHeader(status);
         }
     }
     
@@ -504,7 +592,7 @@ public class ReplayController {
         for (String statusId : statusIds) {
             if (statusCache.tryLock(statusId, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
                 try {
-                    Status status = status(statusId, false);
+                    Status status = statusCache.retrieve(statusId);
                     if (status != null && (!onlyUpdateRunning || status.getState() == RUNNING)) {
                         update(status, sendRate, false);
                         replaysUpdated++;
@@ -536,7 +624,7 @@ public class ReplayController {
         
         if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
             try {
-                Status status = status(id, replayProperties.isPublishEvents());
+                Status status = statusCache.retrieve(id);
                 if (status != null) {
                     if (stop(status, replayProperties.isPublishEvents())) {
                         resp = "Stopped audit replay with id " + id;
@@ -561,13 +649,20 @@ public class ReplayController {
     }
     
     private boolean stop(Status status, boolean publishEvent) {
-        // is the replay running?
-        if (status.getState() == RUNNING) {
+        RunningReplay replay = runningReplays.get(status.getId());
+        
+        // is the replay running? our share of a distributed replay may still be running after another audit service has stopped the replay
+        if (status.getState() == RUNNING || (replay != null && replay.getStatus().isDistributed() && !replay.getFuture().isDone())) {
             
             // if we own it, stop it. otherwise, fire an event to all of the audit services
-            RunningReplay replay = runningReplays.get(status.getId());
             if (replay != null) {
+                // if another instance has reclaimed the replay, our task must not overwrite its progress
+                boolean reclaimed = !status.isDistributed() && status.getOwner() != null && !busProperties.getId().equals(status.getOwner());
+                if (reclaimed)
+                    replay.getTask().abandon();
+                
                 replay.getStatus().setState(STOPPED);
+                replay.getRateLimiter().signal();
                 
                 try {
                     replay.getFuture().get(replayProperties.getStopGracePeriodMillis(), TimeUnit.MILLISECONDS);
@@ -575,14 +670,19 @@ public class ReplayController {
                     // interrupts and timeouts are ok. we just want to give some time to cleanup.
                 }
                 
-                // if it's still not done, cancel it, and update the cache
+                // if it's still not done, cancel it, and update the cache. a distributed replay only holds a share of the files, so the shared status is left
+                // as is, and any claims will lapse
                 if (!replay.getFuture().isDone()) {
                     replay.getFuture().cancel(true);
-                    statusCache.update(replay.getStatus());
+                    if (!replay.getStatus().isDistributed() && !reclaimed)
+                        statusCache.update(replay.getStatus());
                 }
                 
                 runningReplays.remove(status.getId());
-            } else if (publishEvent) {
+            }
+            
+            // a distributed replay is running on the other audit services too
+            if ((replay == null || status.isDistributed()) && publishEvent) {
                 appCtx.publishEvent(new AuditReplayRemoteRequestEvent(this, busProperties.getId(), Request.stop(status.getId())));
             }
         } else {
@@ -622,8 +722,8 @@ public class ReplayController {
         for (String statusId : statusIds) {
             if (statusCache.tryLock(statusId, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
                 try {
-                    Status status = status(statusId, false);
-                    if (status != null && (status.getState() == RUNNING) && stop(status, false)) {
+                    Status status = statusCache.retrieve(statusId);
+                    if (status != null && stop(status, false)) {
                         replaysStopped++;
                     }
                 } finally {
@@ -653,7 +753,7 @@ public class ReplayController {
         
         if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
             try {
-                Status status = status(id, replayProperties.isPublishEvents());
+                Status status = statusCache.retrieve(id);
                 if (status != null) {
                     if (resume(status)) {
                         resp = "Resumed audit replay with id " + id;
@@ -679,12 +779,15 @@ public class ReplayController {
     
     private boolean resume(Status status) {
         // if the audit replay is stopped, start it
-        if (status.getState() == STOPPED)
-            runningReplays.put(status.getId(), start(status));
-        else
-            return false;
+        if (status.getState() == STOPPED) {
+            RunningReplay replay = start(status);
+            if (replay != null) {
+                runningReplays.put(status.getId(), replay);
+                return true;
+            }
+        }
         
-        return true;
+        return false;
     }
     
     /**
@@ -706,11 +809,9 @@ public class ReplayController {
         for (String statusId : statusIds) {
             if (statusCache.tryLock(statusId, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
                 try {
-                    Status status = status(statusId, false);
-                    if (status != null && status.getState() == STOPPED) {
-                        runningReplays.put(status.getId(), start(status));
+                    Status status = statusCache.retrieve(statusId);
+                    if (status != null && resume(status))
                         replaysResumed++;
-                    }
                 } finally {
                     statusCache.unlock(statusId);
                 }
@@ -740,7 +841,7 @@ public class ReplayController {
         
         if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
             try {
-                Status status = status(id, replayProperties.isPublishEvents());
+                Status status = statusCache.retrieve(id);
                 
                 if (status != null) {
                     // can only be deleted if not running
@@ -785,7 +886,7 @@ public class ReplayController {
         for (String statusId : statusIds) {
             if (statusCache.tryLock(statusId, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
                 try {
-                    Status status = status(statusId, false);
+                    Status status = statusCache.retrieve(statusId);
                     if (status != null && status.getState() != RUNNING) {
                         statusCache.delete(status.getId());
                         replaysDeleted++;
@@ -801,8 +902,21 @@ public class ReplayController {
         return resp;
     }
     
+    private boolean join(Status status) {
+        // only take a share of the files if we aren't already
+        RunningReplay existing = runningReplays.get(status.getId());
+        if (existing == null || existing.getFuture().isDone()) {
+            RunningReplay replay = submit(status, false);
+            if (replay != null) {
+                runningReplays.put(status.getId(), replay);
+                return true;
+            }
+        }
+        return false;
+    }
+    
     public void handleRemoteRequest(Request request) {
-        Status status = (request.getId() != null) ? status(request.getId(), replayProperties.isPublishEvents()) : null;
+        Status status = (request.getId() != null) ? statusCache.retrieve(request.getId()) : null;
         
         Request.UpdateRequest updateRequest = (request instanceof Request.UpdateRequest) ? (Request.UpdateRequest) request : null;
         
@@ -846,6 +960,20 @@ public class ReplayController {
                 log.info("{} audit replays stopped", replaysStopped);
                 break;
             
+            case JOIN:
+                if (status != null && status.isDistributed() && status.getState() == RUNNING) {
+                    if (statusCache.tryLock(status.getId(), replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
+                        try {
+                            if (join(status)) {
+                                log.info("Joined distributed audit replay with id {}", status.getId());
+                            }
+                        } finally {
+                            statusCache.unlock(request.getId());
+                        }
+                    }
+                }
+                break;
+            
             default:
                 log.debug("Unknown remote request method: {}", request.getMethod());
         }
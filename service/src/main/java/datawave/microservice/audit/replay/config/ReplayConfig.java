@@ -1,5 +1,7 @@
 package datawave.microservice.audit.replay.config;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -10,10 +12,13 @@ import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.hazelcast.spring.cache.HazelcastCacheManager;
 
+import datawave.microservice.audit.common.VirtualThreads;
+import datawave.microservice.audit.config.AuditProperties;
 import datawave.microservice.audit.replay.status.StatusCache;
 import datawave.microservice.cached.CacheInspector;
 import datawave.microservice.cached.LockableCacheInspector;
@@ -26,19 +31,32 @@ import datawave.microservice.cached.UniversalLockableCacheInspector;
 @ConditionalOnProperty(name = "audit.replay.enabled", havingValue = "true")
 public class ReplayConfig {
     
+    /**
+     * Used to run audit replays. With virtual threads enabled, the pool still limits the number of concurrent audit replays, but its threads are virtual.
+     */
     @RefreshScope
     @Bean
-    public ThreadPoolTaskExecutor auditReplayExecutor(ReplayProperties replayProperties) {
+    public ThreadPoolTaskExecutor auditReplayExecutor(ReplayProperties replayProperties, AuditProperties auditProperties) {
         ReplayProperties.ExecutorProperties executorProperties = replayProperties.getExecutor();
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(executorProperties.getCorePoolSize());
         executor.setMaxPoolSize(executorProperties.getMaxPoolSize());
         executor.setQueueCapacity(executorProperties.getQueueCapacity());
         executor.setThreadNamePrefix(executorProperties.getThreadNamePrefix());
+        if (auditProperties.isVirtualThreadsEnabled())
+            executor.setThreadFactory(VirtualThreads.newThreadFactory(executorProperties.getThreadNamePrefix()));
         executor.initialize();
         return executor;
     }
     
+    /**
+     * Used to periodically stop audit replays which have exceeded the idle timeout, rather than checking for them whenever a status is read.
+     */
+    @Bean(name = "auditReplayIdleCheckScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService auditReplayIdleCheckScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("audit-replay-idle-check-"));
+    }
+    
     @Bean
     public StatusCache replayStatusCache(@Qualifier("cacheInspectorFactory") Function<CacheManager,CacheInspector> cacheInspectorFactory,
                     CacheManager cacheManager) {
@@ -47,6 +65,6 @@ public class ReplayConfig {
             lockableCacheInspector = new LockableHazelcastCacheInspector(cacheManager);
         else
             lockableCacheInspector = new UniversalLockableCacheInspector(cacheInspectorFactory.apply(cacheManager));
-        return new StatusCache(lockableCacheInspector);
+        return new StatusCache(lockableCacheInspector, cacheManager);
     }
 }
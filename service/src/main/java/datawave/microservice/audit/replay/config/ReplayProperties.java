@@ -3,6 +3,7 @@ package datawave.microservice.audit.replay.config;
 import java.util.concurrent.TimeUnit;
 
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -13,6 +14,14 @@ import org.springframework.validation.annotation.Validated;
 @Validated
 @ConfigurationProperties(prefix = "audit.replay")
 public class ReplayProperties {
+    
+    public enum IdleAction {
+        // mark the audit replay as stopped, so that it can be resumed manually
+        STOP,
+        // take over the audit replay, resuming from its last recorded progress
+        RECLAIM
+    }
+    
     private boolean enabled;
     
     // Whether events should be published to the event bus for other audit service instances to act on
@@ -22,6 +31,18 @@ public class ReplayProperties {
     @PositiveOrZero
     private long idleTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
     
+    // How often the owner of a running audit replay records that it is still alive, even while paused or waiting on audits. Must be less than the idle timeout
+    @Positive
+    private long heartbeatIntervalMillis = TimeUnit.SECONDS.toMillis(2);
+    
+    // How often to check for audit replays which have exceeded the idle timeout
+    @Positive
+    private long idleCheckIntervalMillis = TimeUnit.SECONDS.toMillis(1);
+    
+    // What to do with an audit replay which has exceeded the idle timeout. Idle audit replays owned by this instance are always stopped
+    @NotNull
+    private IdleAction idleAction = IdleAction.STOP;
+    
     // How long to wait before forcefully stopping an audit replay
     @PositiveOrZero
     private long stopGracePeriodMillis = 500L;
@@ -38,9 +59,27 @@ public class ReplayProperties {
     @PositiveOrZero
     private long lockLeaseTimeMillis = TimeUnit.SECONDS.toMillis(5);
     
+    // The default number of files to replay concurrently for each audit replay
+    @Positive
+    private int parallelism = 1;
+    
+    // The maximum number of files which may be replayed concurrently for each audit replay
+    @Positive
+    private int maxParallelism = 16;
+    
+    // The number of seconds worth of audit messages which may be sent in a burst, after an audit replay has fallen behind its send rate
+    @DecimalMin("0.0")
+    private double maxBurstSeconds = 1.0;
+    
     @Valid
     private ExecutorProperties executor = new ExecutorProperties();
     
+    @Valid
+    private PipelineProperties pipeline = new PipelineProperties();
+    
+    @Valid
+    private DistributedProperties distributed = new DistributedProperties();
+    
     public boolean isEnabled() {
         return enabled;
     }
@@ -65,6 +104,30 @@ public class ReplayProperties {
         this.idleTimeoutMillis = idleTimeoutMillis;
     }
     
+    public long getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+    
+    public void setHeartbeatIntervalMillis(long heartbeatIntervalMillis) {
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+    
+    public long getIdleCheckIntervalMillis() {
+        return idleCheckIntervalMillis;
+    }
+    
+    public void setIdleCheckIntervalMillis(long idleCheckIntervalMillis) {
+        this.idleCheckIntervalMillis = idleCheckIntervalMillis;
+    }
+    
+    public IdleAction getIdleAction() {
+        return idleAction;
+    }
+    
+    public void setIdleAction(IdleAction idleAction) {
+        this.idleAction = idleAction;
+    }
+    
     public long getStopGracePeriodMillis() {
         return stopGracePeriodMillis;
     }
@@ -97,6 +160,30 @@ public class ReplayProperties {
         this.lockLeaseTimeMillis = lockLeaseTimeMillis;
     }
     
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+    
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+    
+    public double getMaxBurstSeconds() {
+        return maxBurstSeconds;
+    }
+    
+    public void setMaxBurstSeconds(double maxBurstSeconds) {
+        this.maxBurstSeconds = maxBurstSeconds;
+    }
+    
     public ExecutorProperties getExecutor() {
         return executor;
     }
@@ -105,6 +192,22 @@ public class ReplayProperties {
         this.executor = executor;
     }
     
+    public PipelineProperties getPipeline() {
+        return pipeline;
+    }
+    
+    public void setPipeline(PipelineProperties pipeline) {
+        this.pipeline = pipeline;
+    }
+    
+    public DistributedProperties getDistributed() {
+        return distributed;
+    }
+    
+    public void setDistributed(DistributedProperties distributed) {
+        this.distributed = distributed;
+    }
+    
     @Validated
     public static class ExecutorProperties {
         @PositiveOrZero
@@ -151,4 +254,82 @@ public class ReplayProperties {
             this.threadNamePrefix = threadNamePrefix;
         }
     }
+    
+    @Validated
+    public static class PipelineProperties {
+        // The size of the buffer used when reading audit files
+        @Positive
+        private int readBufferSize = 1024 * 1024;
+        
+        // The number of threads used to parse audit messages, shared by all of the files in an audit replay
+        @Positive
+        private int parseThreads = 2;
+        
+        // The maximum number of lines which may be read ahead of the line currently being sent
+        @Positive
+        private int queueCapacity = 1024;
+        
+        // The maximum number of audit messages which may be awaiting a result at once, per file
+        @Positive
+        private int maxInFlight = 16;
+        
+        public int getReadBufferSize() {
+            return readBufferSize;
+        }
+        
+        public void setReadBufferSize(int readBufferSize) {
+            this.readBufferSize = readBufferSize;
+        }
+        
+        public int getParseThreads() {
+            return parseThreads;
+        }
+        
+        public void setParseThreads(int parseThreads) {
+            this.parseThreads = parseThreads;
+        }
+        
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+        
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+        
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+        
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+    
+    @Validated
+    public static class DistributedProperties {
+        // How long an instance's claim on a file lasts without being renewed, before another instance may take the file over
+        @Positive
+        private long leaseDurationMillis = TimeUnit.SECONDS.toMillis(30);
+        
+        // How often an instance renews its claims, and checks for files whose claims have lapsed
+        @Positive
+        private long heartbeatIntervalMillis = TimeUnit.SECONDS.toMillis(10);
+        
+        public long getLeaseDurationMillis() {
+            return leaseDurationMillis;
+        }
+        
+        public void setLeaseDurationMillis(long leaseDurationMillis) {
+            this.leaseDurationMillis = leaseDurationMillis;
+        }
+        
+        public long getHeartbeatIntervalMillis() {
+            return heartbeatIntervalMillis;
+        }
+        
+        public void setHeartbeatIntervalMillis(long heartbeatIntervalMillis) {
+            this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        }
+    }
 }
@@ -1,17 +1,19 @@
 package datawave.microservice.audit.replay.remote;
 
+import static datawave.microservice.audit.replay.remote.Request.Method.JOIN;
 import static datawave.microservice.audit.replay.remote.Request.Method.STOP;
 import static datawave.microservice.audit.replay.remote.Request.Method.STOP_ALL;
 import static datawave.microservice.audit.replay.remote.Request.Method.UPDATE;
 import static datawave.microservice.audit.replay.remote.Request.Method.UPDATE_ALL;
 
 /**
- * Represents a remote request which can be sent out to instruct other audit service instances to update or stop their audit replays.
+ * Represents a remote request which can be sent out to instruct other audit service instances to update or stop their audit replays, or to join a distributed
+ * audit replay.
  */
 public class Request {
     
     public enum Method {
-        UPDATE, UPDATE_ALL, STOP, STOP_ALL
+        UPDATE, UPDATE_ALL, STOP, STOP_ALL, JOIN
     }
     
     private final Method method;
@@ -77,4 +79,8 @@ public class Request {
     public static Request stopAll() {
         return new Request(STOP_ALL);
     }
+    
+    public static Request join(String id) {
+        return new Request(JOIN, id);
+    }
 }
@@ -0,0 +1,264 @@
+package datawave.microservice.audit.replay.runner;
+
+import static datawave.microservice.audit.replay.status.Status.FileState;
+import static datawave.microservice.audit.replay.status.Status.ReplayState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.audit.replay.config.ReplayProperties;
+import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.audit.replay.status.StatusCache;
+
+/**
+ * Coordinates this instance's share of a distributed audit replay. The files of a distributed audit replay are claimed by individual audit service instances,
+ * and each claim is recorded in the shared status cache along with a lease. Claims are renewed by a periodic heartbeat, and if an instance stops renewing its
+ * claims, any other instance participating in the audit replay may take over its files once the leases lapse. Files are resumed from their last committed
+ * progress, so audits which were sent since the previous owner's last status update may be replayed again.
+ * <p>
+ * Every change to the shared status is made while holding the status cache lock for the audit replay, and only the files claimed by this instance are written
+ * back, so that instances do not overwrite each other's progress.
+ */
+public class DistributedReplay {
+    
+    private static final Logger log = LoggerFactory.getLogger(DistributedReplay.class);
+    
+    private final String id;
+    private final String instanceId;
+    private final StatusCache statusCache;
+    private final ReplayProperties replayProperties;
+    private final boolean initiator;
+    
+    // the files claimed by this instance, mapped to their index in the audit replay's list of files. file statuses are compared by identity
+    private final Map<Status.FileStatus,Integer> claimedFiles = new ConcurrentHashMap<>();
+    
+    // the files whose claims have been taken over by another instance
+    private final Set<Status.FileStatus> lostFiles = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * @param id
+     *            the audit replay id
+     * @param instanceId
+     *            the id of this audit service instance
+     * @param statusCache
+     *            the shared status cache
+     * @param replayProperties
+     *            the replay properties
+     * @param initiator
+     *            true if this instance started the audit replay, and is responsible for listing its files
+     */
+    public DistributedReplay(String id, String instanceId, StatusCache statusCache, ReplayProperties replayProperties, boolean initiator) {
+        this.id = id;
+        this.instanceId = instanceId;
+        this.statusCache = statusCache;
+        this.replayProperties = replayProperties;
+        this.initiator = initiator;
+    }
+    
+    public String getInstanceId() {
+        return instanceId;
+    }
+    
+    public boolean isInitiator() {
+        return initiator;
+    }
+    
+    /**
+     * Lists the audit replay's files, unless they have already been listed.
+     *
+     * @param fileLister
+     *            lists (and queues) the files to replay
+     */
+    public void initialize(Supplier<List<Status.FileStatus>> fileLister) {
+        withLock(status -> {
+            if (status.getFiles().isEmpty()) {
+                status.setFiles(fileLister.get());
+                statusCache.update(status);
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Claims the next available file. Files which were partially replayed are claimed before queued files, and files whose owner has not renewed its lease are
+     * available to be claimed.
+     *
+     * @return the claimed file, or null if no files are currently available
+     */
+    public Status.FileStatus claim() {
+        return withLock(status -> {
+            long now = System.currentTimeMillis();
+            List<Status.FileStatus> files = status.getFiles();
+            
+            int index = -1;
+            for (int i = 0; i < files.size(); i++) {
+                Status.FileStatus file = files.get(i);
+                if (isClaimable(file, now) && (index == -1 || (file.getState() == FileState.RUNNING && files.get(index).getState() != FileState.RUNNING)))
+                    index = i;
+            }
+            
+            if (index == -1)
+                return null;
+            
+            Status.FileStatus file = files.get(index);
+            if (file.getOwner() != null)
+                log.info("Taking over file [{}] from instance [{}] for audit replay with id {}", file.getPathUri(), file.getOwner(), id);
+            
+            file.setOwner(instanceId);
+            file.setLeaseExpiration(now + replayProperties.getDistributed().getLeaseDurationMillis());
+            statusCache.updateFile(status, index);
+            
+            claimedFiles.put(file, index);
+            return file;
+        });
+    }
+    
+    private boolean isClaimable(Status.FileStatus file, long now) {
+        return (file.getState() == FileState.QUEUED || file.getState() == FileState.RUNNING) && (file.getOwner() == null || file.getLeaseExpiration() < now);
+    }
+    
+    /**
+     * @return true if any of the audit replay's files have yet to be finished, by this instance or any other
+     */
+    public boolean hasRemainingFiles() {
+        Status status = statusCache.retrieve(id);
+        return status != null && status.getState() == ReplayState.RUNNING
+                        && status.getFiles().stream().anyMatch(file -> file.getState() == FileState.QUEUED || file.getState() == FileState.RUNNING);
+    }
+    
+    /**
+     * @param file
+     *            a file claimed by this instance
+     * @return true if the file has since been claimed by another instance, and should no longer be replayed by this instance
+     */
+    public boolean isLost(Status.FileStatus file) {
+        return lostFiles.contains(file);
+    }
+    
+    /**
+     * Writes the progress of the given file to the shared status, and renews its lease.
+     *
+     * @param file
+     *            a file claimed by this instance
+     */
+    public void checkpoint(Status.FileStatus file) {
+        withLock(status -> {
+            merge(status, file, System.currentTimeMillis(), false);
+            return null;
+        });
+    }
+    
+    /**
+     * Writes the progress of every file claimed by this instance to the shared status, and renews their leases.
+     */
+    public void heartbeat() {
+        if (!claimedFiles.isEmpty()) {
+            withLock(status -> {
+                long now = System.currentTimeMillis();
+                for (Status.FileStatus file : new ArrayList<>(claimedFiles.keySet()))
+                    merge(status, file, now, false);
+                return null;
+            });
+        }
+    }
+    
+    /**
+     * Records that this instance is still participating in the audit replay, whether or not it holds any claims or is making progress.
+     */
+    public void touch() {
+        if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
+            try {
+                statusCache.touch(id);
+            } finally {
+                statusCache.unlock(id);
+            }
+        }
+    }
+    
+    /**
+     * Writes the final progress of the given file to the shared status, and gives up this instance's claim on it.
+     *
+     * @param file
+     *            a file claimed by this instance
+     */
+    public void release(Status.FileStatus file) {
+        withLock(status -> {
+            merge(status, file, System.currentTimeMillis(), true);
+            return null;
+        });
+        claimedFiles.remove(file);
+    }
+    
+    /**
+     * Releases any remaining claims, and updates the state of the audit replay. A distributed audit replay is finished once all of its files are finished, by
+     * whichever instance finishes the last one.
+     *
+     * @param state
+     *            the state of this instance's share of the audit replay
+     */
+    public void complete(ReplayState state) {
+        withLock(status -> {
+            long now = System.currentTimeMillis();
+            for (Status.FileStatus file : new ArrayList<>(claimedFiles.keySet()))
+                merge(status, file, now, true);
+            claimedFiles.clear();
+            
+            if (status.getState() == ReplayState.RUNNING) {
+                if (state == ReplayState.STOPPED || state == ReplayState.FAILED) {
+                    status.setState(state);
+                } else if (status.getFiles().stream().noneMatch(file -> file.getState() == FileState.QUEUED || file.getState() == FileState.RUNNING)) {
+                    status.setState(ReplayState.FINISHED);
+                }
+            }
+            
+            statusCache.updateHeader(status);
+            return null;
+        });
+    }
+    
+    // must be called while holding the lock. only the merged file is written to the status cache
+    private void merge(Status status, Status.FileStatus file, long now, boolean release) {
+        Integer index = claimedFiles.get(file);
+        if (index == null || isLost(file))
+            return;
+        
+        Status.FileStatus sharedFile = status.getFiles().get(index);
+        if (!instanceId.equals(sharedFile.getOwner())) {
+            log.warn("Lost claim on file [{}] to instance [{}] for audit replay with id {}", sharedFile.getPathUri(), sharedFile.getOwner(), id);
+            lostFiles.add(file);
+            return;
+        }
+        
+        if (release) {
+            file.setOwner(null);
+            file.setLeaseExpiration(0L);
+        } else {
+            file.setOwner(instanceId);
+            file.setLeaseExpiration(now + replayProperties.getDistributed().getLeaseDurationMillis());
+        }
+        status.getFiles().set(index, file);
+        statusCache.updateFile(status, index);
+    }
+    
+    private <T> T withLock(Function<Status,T> function) {
+        if (statusCache.tryLock(id, replayProperties.getLockWaitTimeMillis(), replayProperties.getLockLeaseTimeMillis())) {
+            try {
+                Status status = statusCache.retrieve(id);
+                return (status != null) ? function.apply(status) : null;
+            } finally {
+                statusCache.unlock(id);
+            }
+        } else {
+            log.warn("Failed to acquire lock on status cache for distributed audit replay with id {}", id);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+package datawave.microservice.audit.replay.runner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.audit.replay.status.Status.ReplayState;
+
+/**
+ * Paces the audit messages sent for an audit replay. A single limiter is shared by every worker of the replay, so the replay's send rate applies to the replay
+ * as a whole, regardless of how many files are being replayed concurrently.
+ * <p>
+ * This is a token bucket which is refilled continuously at the replay's send rate, using nanosecond precision. Unused permits are saved, up to the configured
+ * burst size, so that time spent auditing is not added to the time spent waiting, and high send rates are not truncated to whole milliseconds. The send rate
+ * is read from the replay's status on every call, and callers waiting on the limiter can be woken via {@link #signal()} so that rate changes take effect
+ * immediately.
+ */
+public class ReplayRateLimiter {
+    
+    private static final long PAUSED_WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    
+    private final Status status;
+    
+    private final double maxBurstSeconds;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private final Condition changed = lock.newCondition();
+    
+    // the following fields are guarded by the lock
+    private double storedPermits = 1.0;
+    private long lastRefillNanos = System.nanoTime();
+    private long lastSendRate;
+    
+    /**
+     * @param status
+     *            the status of the audit replay, which provides the send rate
+     * @param maxBurstSeconds
+     *            the number of seconds worth of permits which can be saved while the replay is idle
+     */
+    public ReplayRateLimiter(Status status, double maxBurstSeconds) {
+        this.status = status;
+        this.maxBurstSeconds = maxBurstSeconds;
+        this.lastSendRate = status.getSendRate();
+    }
+    
+    /**
+     * Blocks until the caller is permitted to send another audit message. A send rate of 0 will pause the audit replay until the send rate is updated, or the
+     * audit replay is no longer running.
+     *
+     * @return true if the caller may send an audit message, false if the audit replay is no longer running
+     */
+    public boolean acquire() {
+        lock.lock();
+        try {
+            while (status.getState() == ReplayState.RUNNING) {
+                long sendRate = status.getSendRate();
+                refill(sendRate);
+                
+                long waitNanos;
+                if (sendRate == 0) {
+                    waitNanos = PAUSED_WAIT_NANOS;
+                } else if (storedPermits >= 1.0) {
+                    storedPermits -= 1.0;
+                    return true;
+                } else {
+                    waitNanos = (long) Math.ceil((1.0 - storedPermits) * TimeUnit.SECONDS.toNanos(1) / sendRate);
+                }
+                
+                try {
+                    changed.awaitNanos(waitNanos);
+                } catch (InterruptedException e) {
+                    // not a problem if we exit a little early
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Wakes any callers waiting on this limiter, so that changes to the send rate or the state of the audit replay take effect immediately.
+     */
+    public void signal() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // must be called while holding the lock. permits accrue at the rate which was in effect since the last refill
+    private void refill(long sendRate) {
+        long now = System.nanoTime();
+        if (lastSendRate > 0) {
+            double maxPermits = Math.max(1.0, lastSendRate * maxBurstSeconds);
+            storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefillNanos) * (double) lastSendRate / TimeUnit.SECONDS.toNanos(1));
+        }
+        lastRefillNanos = now;
+        lastSendRate = sendRate;
+    }
+}
@@ -6,40 +6,68 @@ import static datawave.microservice.audit.replay.status.Status.FileState;
 import static datawave.microservice.audit.replay.status.Status.ReplayState;
 import static datawave.webservice.common.audit.AuditParameters.AUDIT_ID;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import datawave.microservice.audit.common.VirtualThreads;
 import datawave.microservice.audit.replay.config.ReplayProperties;
 import datawave.microservice.audit.replay.status.Status;
 import datawave.microservice.audit.replay.status.StatusCache;
 
 /**
  * The replay task is responsible for reading the audit messages from disk, parsing them from JSON, and processing them through the audit controller.
+ * <p>
+ * If the audit replay's parallelism is greater than 1, up to that many files are replayed concurrently by a pool of workers owned by this task. Each worker
+ * tracks the progress of its own file, and the send rate is enforced across all of the workers by a shared {@link ReplayRateLimiter}.
+ * <p>
+ * If the audit replay is distributed, the workers claim files via the given {@link DistributedReplay} instead, so that the files are shared out between all of
+ * the audit service instances participating in the audit replay. In that case, the send rate applies to each instance separately.
  */
 public abstract class ReplayTask implements Runnable {
     
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final TypeReference<HashMap<String,String>> typeRef = new TypeReference<HashMap<String,String>>() {};
     private static final Logger log = LoggerFactory.getLogger(ReplayTask.class);
     
     private final Status status;
@@ -48,11 +76,44 @@ public abstract class ReplayTask implements Runnable {
     
     private FileSystem filesystem;
     
+    private final CompressionCodecFactory codecFactory;
+    
+    private final ReplayRateLimiter rateLimiter;
+    
+    private final DistributedReplay distributedReplay;
+    
+    // set once another instance has taken over the audit replay, after which this task must not write to the status cache
+    private volatile boolean abandoned = false;
+    
+    // executors for the reader and parse stages of the replay pipeline, which are shared by all of the files replayed by this task
+    private ExecutorService readerExecutor;
+    private ExecutorService parseExecutor;
+    
     public ReplayTask(Configuration config, Status status, StatusCache statusCache, ReplayProperties replayProperties) throws Exception {
+        this(config, status, statusCache, replayProperties, null);
+    }
+    
+    public ReplayTask(Configuration config, Status status, StatusCache statusCache, ReplayProperties replayProperties, DistributedReplay distributedReplay)
+                    throws Exception {
         this.status = status;
         this.statusCache = statusCache;
         this.replayProperties = replayProperties;
         this.filesystem = FileSystem.get(new URI(status.getPathUri()), config);
+        this.codecFactory = new CompressionCodecFactory(config);
+        this.rateLimiter = new ReplayRateLimiter(status, replayProperties.getMaxBurstSeconds());
+        this.distributedReplay = distributedReplay;
+    }
+    
+    public ReplayRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+    
+    /**
+     * Prevents this task from writing any further updates to the status cache. This is used when another audit service instance has taken over the audit
+     * replay, so that this task's final status doesn't overwrite the progress recorded by the new owner.
+     */
+    public void abandon() {
+        abandoned = true;
     }
     
     @Override
@@ -61,26 +122,48 @@ public abstract class ReplayTask implements Runnable {
         if (status.getState() != ReplayState.RUNNING)
             return;
         
+        // the heartbeat shows that this task is alive while it is paused, or waiting on audits, so that the audit replay isn't mistaken for idle
+        long heartbeatInterval = replayProperties.getHeartbeatIntervalMillis();
+        ScheduledExecutorService heartbeat = Executors
+                        .newSingleThreadScheduledExecutor(new CustomizableThreadFactory(Thread.currentThread().getName() + "-heartbeat-"));
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        
+        try {
+            if (distributedReplay != null) {
+                runDistributed(heartbeat);
+            } else {
+                runLocal(heartbeat);
+            }
+        } finally {
+            stopHeartbeat(heartbeat);
+        }
+    }
+    
+    private void runLocal(ScheduledExecutorService heartbeat) {
         // if we need to, get a list of files
-        if (status.getFiles().isEmpty())
+        if (status.getFiles().isEmpty()) {
             status.setFiles(listFiles(status.isReplayUnfinishedFiles()));
+            statusCache.update(status);
+        }
         
         // sort the files to process. 'RUNNING' first, followed by 'QUEUED'
-        List<Status.FileStatus> filesToProcess = status.getFiles().stream()
+        Queue<Status.FileStatus> filesToProcess = status.getFiles().stream()
                         .filter(fileStatus -> fileStatus.getState() == FileState.RUNNING || fileStatus.getState() == FileState.QUEUED)
                         .sorted((o1, o2) -> (o1.getState() == o2.getState()) ? o1.getPathUri().compareTo(o2.getPathUri())
                                         : o2.getState().ordinal() - o1.getState().ordinal())
-                        .collect(Collectors.toList());
+                        .collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
         
         // then, process any unmarked/remaining files
-        for (Status.FileStatus fileStatus : filesToProcess) {
-            if (!processFile(fileStatus)) {
-                status.setState(ReplayState.FAILED);
-            } else if (status.getState() != ReplayState.RUNNING) {
-                break;
+        startPipeline();
+        try {
+            int numWorkers = Math.min(status.getParallelism(), filesToProcess.size());
+            if (numWorkers > 1) {
+                processFilesConcurrently(() -> processFiles(filesToProcess), numWorkers);
+            } else {
+                processFiles(filesToProcess);
             }
-            
-            statusCache.update(status);
+        } finally {
+            stopPipeline();
         }
         
         // if we're still running, finish the replay
@@ -90,8 +173,154 @@ public abstract class ReplayTask implements Runnable {
                 status.setState(ReplayState.FINISHED);
         }
         
+        // make sure a late heartbeat can't overwrite the final status
+        stopHeartbeat(heartbeat);
+        
         // status cache is updated here in the event that we stop gracefully
-        statusCache.update(status);
+        if (!abandoned)
+            statusCache.update(status);
+    }
+    
+    /**
+     * Replays this instance's share of a distributed audit replay. Files are claimed one at a time until none are left. While files claimed by other instances
+     * are still being replayed, this instance keeps checking for files whose claims have lapsed, so that it can take them over.
+     */
+    private void runDistributed(ScheduledExecutorService heartbeat) {
+        // only the instance which started the audit replay lists the files. the other instances pick them up from the status cache
+        if (distributedReplay.isInitiator())
+            distributedReplay.initialize(() -> listFiles(status.isReplayUnfinishedFiles()));
+        
+        // claims are renewed separately from the owner heartbeat, since renewing them rewrites every claimed file
+        long renewInterval = replayProperties.getDistributed().getHeartbeatIntervalMillis();
+        heartbeat.scheduleWithFixedDelay(distributedReplay::heartbeat, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+        
+        startPipeline();
+        try {
+            if (status.getParallelism() > 1) {
+                processFilesConcurrently(this::claimFiles, status.getParallelism());
+            } else {
+                claimFiles();
+            }
+        } finally {
+            stopPipeline();
+            stopHeartbeat(heartbeat);
+        }
+        
+        if (status.getState() == ReplayState.RUNNING)
+            status.setState(ReplayState.FINISHED);
+        
+        // the shared status is only marked as finished once every instance's files are finished
+        distributedReplay.complete(status.getState());
+    }
+    
+    private void heartbeat() {
+        try {
+            if (distributedReplay != null) {
+                distributedReplay.touch();
+            } else if (!abandoned && status.getState() == ReplayState.RUNNING) {
+                statusCache.updateHeader(status);
+            }
+        } catch (Exception e) {
+            // keep the heartbeat going
+            log.warn("Unable to record heartbeat for audit replay with id {}", status.getId(), e);
+        }
+    }
+    
+    private void stopHeartbeat(ScheduledExecutorService heartbeat) {
+        heartbeat.shutdownNow();
+        try {
+            heartbeat.awaitTermination(replayProperties.getLockWaitTimeMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void claimFiles() {
+        while (status.getState() == ReplayState.RUNNING) {
+            Status.FileStatus fileStatus = distributedReplay.claim();
+            if (fileStatus != null) {
+                if (!processFile(fileStatus))
+                    status.setState(ReplayState.FAILED);
+                
+                distributedReplay.release(fileStatus);
+            } else if (distributedReplay.hasRemainingFiles()) {
+                // other instances are still replaying files. wait in case any of their claims lapse
+                try {
+                    Thread.sleep(replayProperties.getDistributed().getHeartbeatIntervalMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+    
+    private void startPipeline() {
+        String threadName = Thread.currentThread().getName();
+        readerExecutor = Executors.newCachedThreadPool(blockingThreadFactory(threadName + "-reader-"));
+        parseExecutor = Executors.newFixedThreadPool(replayProperties.getPipeline().getParseThreads(), new CustomizableThreadFactory(threadName + "-parser-"));
+    }
+    
+    // readers and workers spend most of their time blocked, so they run on virtual threads whenever the audit replay itself does. parsers are cpu bound, so
+    // they always run on platform threads
+    private static ThreadFactory blockingThreadFactory(String namePrefix) {
+        if (VirtualThreads.isVirtual(Thread.currentThread()))
+            return VirtualThreads.newThreadFactory(namePrefix);
+        return new CustomizableThreadFactory(namePrefix);
+    }
+    
+    private void stopPipeline() {
+        readerExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+    
+    /**
+     * Runs the given worker on each thread of a pool of workers, each of which takes the next file to replay until there are no files left. The send rate is
+     * shared by all of the workers.
+     *
+     * @param worker
+     *            replays files until there are none left
+     * @param numWorkers
+     *            the number of files to replay concurrently
+     */
+    private void processFilesConcurrently(Runnable worker, int numWorkers) {
+        ExecutorService workers = Executors.newFixedThreadPool(numWorkers, blockingThreadFactory(Thread.currentThread().getName() + "-worker-"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < numWorkers; i++)
+                futures.add(workers.submit(worker));
+            
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            log.error("Audit replay worker failed for id {}", status.getId(), e.getCause());
+            status.setState(ReplayState.FAILED);
+        } catch (InterruptedException e) {
+            // the replay has been cancelled, so stop the workers
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+            
+            // the final status must not be written until every worker has stopped, or a worker's last checkpoint could overwrite it
+            try {
+                if (!workers.awaitTermination(replayProperties.getStopGracePeriodMillis(), TimeUnit.MILLISECONDS))
+                    log.warn("Audit replay workers for id {} did not stop within the grace period", status.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private void processFiles(Queue<Status.FileStatus> filesToProcess) {
+        Status.FileStatus fileStatus;
+        while (status.getState() == ReplayState.RUNNING && (fileStatus = filesToProcess.poll()) != null) {
+            if (!processFile(fileStatus))
+                status.setState(ReplayState.FAILED);
+            
+            updateStatus(fileStatus);
+        }
     }
     
     private List<Status.FileStatus> listFiles(boolean replayUnfinished) {
@@ -155,87 +384,28 @@ public abstract class ReplayTask implements Runnable {
         
         fileStatus.setPathUri(file.toString());
         fileStatus.setState(FileState.RUNNING);
-        statusCache.update(status);
+        updateStatus(fileStatus);
         
-        boolean encounteredError = false;
-        long linesRead = fileStatus.getLinesRead();
-        long auditsSent = fileStatus.getAuditsSent();
-        long auditsFailed = fileStatus.getAuditsFailed();
-        long parseFailures = fileStatus.getParseFailures();
+        FileProgress progress = new FileProgress(fileStatus);
         
-        BufferedReader reader = null;
+        // the reader stage runs ahead of the send stage, bounded by the capacity of the queue between them
+        BlockingQueue<PendingLine> pendingLines = new ArrayBlockingQueue<>(replayProperties.getPipeline().getQueueCapacity());
+        AtomicBoolean readerStopped = new AtomicBoolean(false);
+        Path fileToRead = file;
+        long linesToSkip = numToSkip;
+        long startOffset = (numToSkip > 0) ? fileStatus.getCommittedOffset() : 0L;
+        Future<?> reader = readerExecutor.submit(() -> readLines(fileToRead, linesToSkip, startOffset, pendingLines, readerStopped));
         try {
-            // read each audit message, and process via the audit service
-            reader = new BufferedReader(new InputStreamReader(filesystem.open(file), UTF_8));
-            TypeReference<HashMap<String,String>> typeRef = new TypeReference<HashMap<String,String>>() {};
-            
-            String line;
-            while (null != (line = reader.readLine()) && status.getState() == ReplayState.RUNNING) {
-                if (++linesRead > numToSkip) {
-                    try {
-                        // send rate of 0 will pause the audit replay
-                        long sendRate = status.getSendRate();
-                        while (sendRate == 0) {
-                            try {
-                                Thread.sleep(TimeUnit.SECONDS.toMillis(5));
-                            } catch (InterruptedException e) {
-                                // not a problem if we exit a little early
-                            }
-                            sendRate = status.getSendRate();
-                        }
-                        
-                        HashMap<String,String> auditParamsMap = mapper.readValue(line, typeRef);
-                        
-                        // add the audit replay id for tracking purposes
-                        auditParamsMap.put("replayId", status.getId());
-                        
-                        if (!auditInternal(auditParamsMap)) {
-                            log.warn("Failed to audit: {}", auditParamsMap.get(AUDIT_ID));
-                            encounteredError = true;
-                            auditsFailed++;
-                        }
-                        auditsSent++;
-                        
-                        try {
-                            Thread.sleep((long) (1000.0 / sendRate));
-                        } catch (InterruptedException e) {
-                            // not a problem if we exit a little early
-                        }
-                    } catch (IOException e) {
-                        log.warn("Unable to parse a JSON audit message from [{}]", line);
-                        encounteredError = true;
-                        parseFailures++;
-                    }
-                }
-                
-                // update the cached status per the status update interval
-                if ((System.currentTimeMillis() - status.getLastUpdated().getTime()) > replayProperties.getStatusUpdateIntervalMillis()) {
-                    fileStatus.setLinesRead(linesRead);
-                    fileStatus.setAuditsSent(auditsSent);
-                    fileStatus.setAuditsFailed(auditsFailed);
-                    fileStatus.setParseFailures(parseFailures);
-                    statusCache.update(status);
-                }
-            }
-        } catch (IOException e) {
-            encounteredError = true;
-            log.error("Unable to read from file [{}]", file);
+            sendLines(file, fileStatus, progress, pendingLines);
+        } finally {
+            readerStopped.set(true);
+            reader.cancel(true);
         }
         
-        fileStatus.setLinesRead(linesRead);
-        fileStatus.setAuditsSent(auditsSent);
-        fileStatus.setAuditsFailed(auditsFailed);
-        fileStatus.setParseFailures(parseFailures);
-        
-        if (reader != null) {
-            try {
-                reader.close();
-            } catch (IOException e) {
-                log.error("Unable to close file [{}]", file);
-            }
-        }
+        progress.update(fileStatus);
+        boolean encounteredError = progress.encounteredError;
         
-        if (status.getState() == ReplayState.RUNNING) {
+        if (isReplaying(fileStatus)) {
             
             FileState fileState = (encounteredError) ? FileState.FAILED : FileState.FINISHED;
             Path finalPath = renameFile(fileState, file);
@@ -267,15 +437,391 @@ public abstract class ReplayTask implements Runnable {
         return null;
     }
     
-    private boolean auditInternal(Map<String,String> auditParamsMap) {
-        boolean success = false;
+    /**
+     * The reader stage. Reads each line of the file, and hands it off to the parse stage. Parsed lines are queued for the send stage in file order.
+     * <p>
+     * When resuming an uncompressed file with a committed byte offset, the reader seeks directly to that offset rather than re-reading the lines which have
+     * already been replayed. Compressed files, and files whose status predates byte offsets, fall back to skipping lines.
+     *
+     * @param file
+     *            the file to read
+     * @param numToSkip
+     *            the number of lines which have already been replayed
+     * @param startOffset
+     *            the byte offset just past the last line which has already been replayed, or 0 if unknown
+     * @param pendingLines
+     *            the queue of lines waiting to be sent
+     * @param stopped
+     *            indicates that the send stage has stopped, and no more lines are needed
+     */
+    private void readLines(Path file, long numToSkip, long startOffset, BlockingQueue<PendingLine> pendingLines, AtomicBoolean stopped) {
+        long lineNumber = 0;
+        long offset = 0;
+        IOException failure = null;
+        
+        int bufferSize = replayProperties.getPipeline().getReadBufferSize();
+        
+        // compressed files are decompressed using the codec which matches the file extension
+        CompressionCodec codec = codecFactory.getCodec(file);
+        
+        FSDataInputStream fileIn = null;
         try {
-            success = audit(auditParamsMap);
+            fileIn = filesystem.open(file, bufferSize);
+            if (codec == null && startOffset > 0) {
+                fileIn.seek(startOffset);
+                lineNumber = numToSkip;
+                offset = startOffset;
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        
+        if (failure == null) {
+            try (LineReader reader = new LineReader((codec != null) ? codec.createInputStream(fileIn) : fileIn, bufferSize, offset)) {
+                String line;
+                while (!stopped.get() && null != (line = reader.readLine())) {
+                    if (++lineNumber > numToSkip) {
+                        String jsonLine = line;
+                        CompletableFuture<HashMap<String,String>> parsed = CompletableFuture.supplyAsync(() -> parse(jsonLine), parseExecutor);
+                        if (!offer(pendingLines, new PendingLine(lineNumber, reader.getOffset(), line, parsed), stopped))
+                            return;
+                    }
+                }
+                offset = reader.getOffset();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        
+        if (failure != null && fileIn != null) {
+            try {
+                fileIn.close();
+            } catch (IOException e) {
+                log.debug("Unable to close file [{}]", file, e);
+            }
+        }
+        
+        offer(pendingLines, PendingLine.endOfFile(lineNumber, offset, failure), stopped);
+    }
+    
+    private static HashMap<String,String> parse(String line) {
+        try {
+            return mapper.readValue(line, typeRef);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static boolean offer(BlockingQueue<PendingLine> pendingLines, PendingLine pendingLine, AtomicBoolean stopped) {
+        try {
+            while (!stopped.get()) {
+                if (pendingLines.offer(pendingLine, 100, TimeUnit.MILLISECONDS))
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            // the send stage has stopped
+        }
+        return false;
+    }
+    
+    /**
+     * The send stage. Takes each parsed line in file order, and sends it via the audit service once permitted by the rate limiter. Up to the configured number
+     * of audits may be in flight at once, but progress is only committed in file order, once every earlier line has completed, so that the file status is
+     * always exact for resume.
+     *
+     * @param file
+     *            the file being replayed
+     * @param fileStatus
+     *            the status of the file being replayed
+     * @param progress
+     *            the committed progress for the file
+     * @param pendingLines
+     *            the queue of lines waiting to be sent
+     */
+    private void sendLines(Path file, Status.FileStatus fileStatus, FileProgress progress, BlockingQueue<PendingLine> pendingLines) {
+        int maxInFlight = replayProperties.getPipeline().getMaxInFlight();
+        Deque<InFlightLine> inFlight = new ArrayDeque<>();
+        PendingLine endOfFile = null;
+        // tracked separately from the status' last updated time, which is also refreshed by the heartbeat
+        long lastProgressUpdate = System.currentTimeMillis();
+        try {
+            while (isReplaying(fileStatus)) {
+                PendingLine pendingLine;
+                try {
+                    pendingLine = pendingLines.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // not a problem if we exit a little early
+                    continue;
+                }
+                
+                if (pendingLine != null) {
+                    if (pendingLine.isEndOfFile()) {
+                        endOfFile = pendingLine;
+                        break;
+                    }
+                    
+                    HashMap<String,String> auditParamsMap = null;
+                    try {
+                        auditParamsMap = pendingLine.parsed.join();
+                    } catch (CompletionException e) {
+                        log.warn("Unable to parse a JSON audit message from [{}]", pendingLine.line);
+                    }
+                    
+                    if (auditParamsMap != null) {
+                        // wait for the rate limiter. if the replay is stopped in the meantime, this line will be replayed on resume
+                        if (!rateLimiter.acquire())
+                            break;
+                        
+                        // add the audit replay id for tracking purposes
+                        auditParamsMap.put("replayId", status.getId());
+                        
+                        inFlight.addLast(new InFlightLine(pendingLine, auditParamsMap.get(AUDIT_ID), auditInternal(auditParamsMap)));
+                    } else {
+                        inFlight.addLast(new InFlightLine(pendingLine, null, null));
+                    }
+                    
+                    // commit completed lines in file order, waiting for the oldest line if the window is full
+                    while (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || inFlight.peekFirst().isDone()))
+                        progress.commit(inFlight.removeFirst());
+                }
+                
+                // update the cached status per the status update interval
+                if ((System.currentTimeMillis() - lastProgressUpdate) > replayProperties.getStatusUpdateIntervalMillis()) {
+                    progress.update(fileStatus);
+                    updateStatus(fileStatus);
+                    lastProgressUpdate = System.currentTimeMillis();
+                }
+            }
+        } finally {
+            // wait for any audits which are still in flight, so that the committed progress is exact
+            while (!inFlight.isEmpty())
+                progress.commit(inFlight.removeFirst());
+        }
+        
+        if (endOfFile != null) {
+            if (endOfFile.failure != null) {
+                progress.encounteredError = true;
+                log.error("Unable to read from file [{}]", file, endOfFile.failure);
+            } else {
+                progress.linesRead = Math.max(progress.linesRead, endOfFile.lineNumber);
+                progress.committedOffset = Math.max(progress.committedOffset, endOfFile.endOffset);
+            }
+        }
+    }
+    
+    // for a distributed audit replay, a file is only replayed while this instance still holds its claim
+    private boolean isReplaying(Status.FileStatus fileStatus) {
+        return status.getState() == ReplayState.RUNNING && (distributedReplay == null || !distributedReplay.isLost(fileStatus));
+    }
+    
+    // only the progress of the given file is written to the status cache. for a distributed audit replay, this is merged into the shared status
+    private void updateStatus(Status.FileStatus fileStatus) {
+        if (distributedReplay != null) {
+            distributedReplay.checkpoint(fileStatus);
+        } else if (!abandoned) {
+            statusCache.updateFile(status, status.getFiles().indexOf(fileStatus));
+        }
+    }
+    
+    private CompletableFuture<Boolean> auditInternal(Map<String,String> auditParamsMap) {
+        CompletableFuture<Boolean> result;
+        try {
+            result = auditAsync(auditParamsMap);
         } catch (Exception e) {
             log.warn("Exception thrown while auditing: {}", auditParamsMap.get(AUDIT_ID), e);
+            return CompletableFuture.completedFuture(false);
         }
-        return success;
+        
+        return result.exceptionally(e -> {
+            log.warn("Exception thrown while auditing: {}", auditParamsMap.get(AUDIT_ID), e);
+            return false;
+        });
     }
     
     abstract protected boolean audit(Map<String,String> auditParamsMap);
+    
+    /**
+     * Audits the given parameters without blocking the calling thread. By default, this delegates to {@link #audit(Map)}.
+     *
+     * @param auditParamsMap
+     *            the audit parameters
+     * @return a future which will be completed with true if the audit was successful, false otherwise
+     */
+    protected CompletableFuture<Boolean> auditAsync(Map<String,String> auditParamsMap) {
+        return CompletableFuture.completedFuture(audit(auditParamsMap));
+    }
+    
+    /**
+     * A line which has been read from the file, and handed off to the parse stage. A line without a parse result marks the end of the file.
+     */
+    private static class PendingLine {
+        private final long lineNumber;
+        // the byte offset just past the end of this line
+        private final long endOffset;
+        private final String line;
+        private final CompletableFuture<HashMap<String,String>> parsed;
+        private final IOException failure;
+        
+        private PendingLine(long lineNumber, long endOffset, String line, CompletableFuture<HashMap<String,String>> parsed) {
+            this(lineNumber, endOffset, line, parsed, null);
+        }
+        
+        private PendingLine(long lineNumber, long endOffset, String line, CompletableFuture<HashMap<String,String>> parsed, IOException failure) {
+            this.lineNumber = lineNumber;
+            this.endOffset = endOffset;
+            this.line = line;
+            this.parsed = parsed;
+            this.failure = failure;
+        }
+        
+        private static PendingLine endOfFile(long lineNumber, long endOffset, IOException failure) {
+            return new PendingLine(lineNumber, endOffset, null, null, failure);
+        }
+        
+        private boolean isEndOfFile() {
+            return parsed == null;
+        }
+    }
+    
+    /**
+     * A line which has been sent via the audit service. A line without a result could not be parsed.
+     */
+    private static class InFlightLine {
+        private final long lineNumber;
+        private final long endOffset;
+        private final String auditId;
+        private final CompletableFuture<Boolean> result;
+        
+        private InFlightLine(PendingLine pendingLine, String auditId, CompletableFuture<Boolean> result) {
+            this.lineNumber = pendingLine.lineNumber;
+            this.endOffset = pendingLine.endOffset;
+            this.auditId = auditId;
+            this.result = result;
+        }
+        
+        private boolean isDone() {
+            return result == null || result.isDone();
+        }
+    }
+    
+    /**
+     * The progress which has been committed for a file. Lines are committed in file order, so this always reflects a prefix of the file.
+     */
+    private static class FileProgress {
+        private long linesRead;
+        private long auditsSent;
+        private long auditsFailed;
+        private long parseFailures;
+        private long committedOffset;
+        private boolean encounteredError;
+        
+        private FileProgress(Status.FileStatus fileStatus) {
+            this.linesRead = fileStatus.getLinesRead();
+            this.committedOffset = fileStatus.getCommittedOffset();
+            this.auditsSent = fileStatus.getAuditsSent();
+            this.auditsFailed = fileStatus.getAuditsFailed();
+            this.parseFailures = fileStatus.getParseFailures();
+        }
+        
+        private void commit(InFlightLine line) {
+            linesRead = line.lineNumber;
+            committedOffset = line.endOffset;
+            if (line.result == null) {
+                encounteredError = true;
+                parseFailures++;
+            } else {
+                if (!line.result.join()) {
+                    log.warn("Failed to audit: {}", line.auditId);
+                    encounteredError = true;
+                    auditsFailed++;
+                }
+                auditsSent++;
+            }
+        }
+        
+        private void update(Status.FileStatus fileStatus) {
+            fileStatus.setLinesRead(linesRead);
+            fileStatus.setAuditsSent(auditsSent);
+            fileStatus.setAuditsFailed(auditsFailed);
+            fileStatus.setParseFailures(parseFailures);
+            fileStatus.setCommittedOffset(committedOffset);
+        }
+    }
+    
+    /**
+     * Reads UTF-8 lines from a stream, while tracking the byte offset of the end of the last line read. As with {@link java.io.BufferedReader}, lines may be
+     * terminated by '\n', '\r', or "\r\n". A "\r\n" is always consumed as a whole, so that the offset never falls between the two.
+     */
+    private static class LineReader implements Closeable {
+        private final InputStream in;
+        private final byte[] buffer;
+        private int position = 0;
+        private int limit = 0;
+        private long offset;
+        
+        private byte[] lineBuffer = new byte[1024];
+        private int lineLength = 0;
+        
+        private LineReader(InputStream in, int bufferSize, long offset) {
+            this.in = in;
+            this.buffer = new byte[bufferSize];
+            this.offset = offset;
+        }
+        
+        private String readLine() throws IOException {
+            lineLength = 0;
+            boolean consumed = false;
+            while (fill()) {
+                consumed = true;
+                
+                int start = position;
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r')
+                    position++;
+                
+                append(start, position - start);
+                offset += position - start;
+                
+                if (position < limit) {
+                    // consume the line terminator, along with the '\n' of a "\r\n"
+                    byte terminator = buffer[position++];
+                    offset++;
+                    if (terminator == '\r' && fill() && buffer[position] == '\n') {
+                        position++;
+                        offset++;
+                    }
+                    return toLine();
+                }
+            }
+            return (consumed) ? toLine() : null;
+        }
+        
+        // reads more of the stream once the buffer has been consumed. returns false at the end of the stream
+        private boolean fill() throws IOException {
+            if (position == limit) {
+                limit = Math.max(in.read(buffer), 0);
+                position = 0;
+            }
+            return position < limit;
+        }
+        
+        private void append(int start, int length) {
+            if (lineLength + length > lineBuffer.length)
+                lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineBuffer.length * 2, lineLength + length));
+            System.arraycopy(buffer, start, lineBuffer, lineLength, length);
+            lineLength += length;
+        }
+        
+        private String toLine() {
+            return new String(lineBuffer, 0, lineLength, UTF_8);
+        }
+        
+        private long getOffset() {
+            return offset;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
 }
@@ -11,10 +11,12 @@ public class RunningReplay {
     
     final private Status status;
     final private Future future;
+    final private ReplayTask task;
     
-    public RunningReplay(Status status, Future future) {
+    public RunningReplay(Status status, Future future, ReplayTask task) {
         this.status = status;
         this.future = future;
+        this.task = task;
     }
     
     public Status getStatus() {
@@ -24,4 +26,12 @@ public class RunningReplay {
     public Future getFuture() {
         return future;
     }
+    
+    public ReplayTask getTask() {
+        return task;
+    }
+    
+    public ReplayRateLimiter getRateLimiter() {
+        return task.getRateLimiter();
+    }
 }
@@ -1,68 +1,219 @@
 package datawave.microservice.audit.replay.status;
 
-import static datawave.microservice.audit.replay.status.StatusCache.CACHE_NAME;
-
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.CheckReturnValue;
 
-import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 
 import datawave.microservice.cached.LockableCacheInspector;
 
 /**
  * The StatusCache is used to cache the status of every audit replay. By default, this will operate as a local concurrent map cache, but if the Hazelcast client
  * is enabled, this cache will be shared across multiple audit-service instances.
+ * <p>
+ * Each audit replay is stored as a small header, containing everything but the file statuses, plus a separate entry for each file. This allows the progress of
+ * a single file to be updated without rewriting the status of every other file in the audit replay.
+ * <p>
+ * Reads do not require the lock. Every header write is stamped, and a read is retried if the header was rewritten while the files were being read, so that the
+ * header and file statuses returned belong together.
+ * <p>
+ * Older audit-service instances stored the whole {@link Status} in the header cache. Those entries are still read as they are, and are split into a header
+ * and file entries the first time they are updated, so that replays survive a rolling upgrade.
  */
-@CacheConfig(cacheNames = CACHE_NAME)
 public class StatusCache {
     public static final String CACHE_NAME = "auditReplay";
+    public static final String FILES_CACHE_NAME = "auditReplayFiles";
+    
+    private static final int MAX_READ_ATTEMPTS = 3;
     
     private final LockableCacheInspector cacheInspector;
     
-    public StatusCache(LockableCacheInspector cacheInspector) {
+    private final Cache headerCache;
+    
+    private final Cache filesCache;
+    
+    public StatusCache(LockableCacheInspector cacheInspector, CacheManager cacheManager) {
         this.cacheInspector = cacheInspector;
+        this.headerCache = cacheManager.getCache(CACHE_NAME);
+        this.filesCache = cacheManager.getCache(FILES_CACHE_NAME);
     }
     
-    @CachePut(key = "#id")
     public Status create(String id, String path, long sendRate, boolean replayUnfinished) {
+        return create(id, path, sendRate, 1, replayUnfinished);
+    }
+    
+    public Status create(String id, String path, long sendRate, int parallelism, boolean replayUnfinished) {
+        return create(id, path, sendRate, parallelism, false, replayUnfinished);
+    }
+    
+    public Status create(String id, String path, long sendRate, int parallelism, boolean distributed, boolean replayUnfinished) {
         Status status = new Status();
         status.setId(id);
         status.setState(Status.ReplayState.CREATED);
         status.setPathUri(path);
         status.setSendRate(sendRate);
+        status.setParallelism(parallelism);
+        status.setDistributed(distributed);
         status.setLastUpdated(new Date());
         status.setReplayUnfinishedFiles(replayUnfinished);
+        headerCache.put(id, new Header(status));
         return status;
     }
     
+    /**
+     * Retrieves the status of an audit replay, including the status of each of its files.
+     *
+     * @param id
+     *            the audit replay id
+     * @return the status, or null if there is no audit replay with the given id
+     */
     public Status retrieve(String id) {
-        return cacheInspector.list(CACHE_NAME, Status.class, id);
+        Object value = getHeaderValue(id);
+        return (value instanceof Status) ? (Status) value : retrieve((Header) value);
+    }
+    
+    /**
+     * Retrieves the status of every audit replay, including the status of each of their files.
+     *
+     * @return the statuses
+     */
+    public List<Status> retrieveAll() {
+        // @formatter:off
+        return cacheInspector.listAll(CACHE_NAME, Object.class).stream()
+                .map(value -> (value instanceof Status) ? (Status) value : retrieve((Header) value))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        // @formatter:on
+    }
+    
+    /**
+     * Retrieves the status of every audit replay, without the status of their files. Only the headers are read, so this is cheap enough to call frequently.
+     *
+     * @return the statuses, without files
+     */
+    public List<Status> retrieveAllHeaders() {
+        return listAllHeaders().stream().map(Header::toStatus).collect(Collectors.toList());
     }
     
     public List<String> retrieveAllIds() {
-        return cacheInspector.listAll(CACHE_NAME, Status.class).stream().map(Status::getId).collect(Collectors.toList());
+        return listAllHeaders().stream().map(header -> header.id).collect(Collectors.toList());
+    }
+    
+    private List<Header> listAllHeaders() {
+        return cacheInspector.listAll(CACHE_NAME, Object.class).stream().map(StatusCache::toHeader).collect(Collectors.toList());
+    }
+    
+    private Status retrieve(Header header) {
+        Status status = null;
+        for (int attempt = 1; header != null; attempt++) {
+            status = header.toStatus();
+            List<Status.FileStatus> files = new ArrayList<>(header.numFiles);
+            for (int i = 0; i < header.numFiles; i++) {
+                Status.FileStatus file = filesCache.get(fileKey(header.id, i), Status.FileStatus.class);
+                if (file != null)
+                    files.add(file);
+            }
+            status.setFiles(files);
+            
+            // the read is consistent if the header wasn't rewritten while reading the files. otherwise, try again with the latest header
+            Object value = getHeaderValue(header.id);
+            if (value instanceof Status)
+                return (Status) value;
+            Header latest = (Header) value;
+            if (latest == null || latest.stamp == header.stamp || attempt >= MAX_READ_ATTEMPTS)
+                break;
+            header = latest;
+        }
+        return status;
     }
     
-    @CachePut(key = "#status.getId()")
+    /**
+     * Updates the status of an audit replay, and every one of its files.
+     *
+     * @param status
+     *            the status
+     * @return the status
+     */
     public Status update(Status status) {
         status.setLastUpdated(new Date());
+        for (int i = 0; i < status.getFiles().size(); i++)
+            filesCache.put(fileKey(status.getId(), i), status.getFiles().get(i));
+        headerCache.put(status.getId(), new Header(status));
         return status;
     }
     
-    @CacheEvict(key = "#id")
+    /**
+     * Updates the status of an audit replay, without updating the status of its files.
+     *
+     * @param status
+     *            the status
+     * @return the status
+     */
+    public Status updateHeader(Status status) {
+        status.setLastUpdated(new Date());
+        
+        // a status stored by an older instance has no file entries yet, so they are written along with the first header
+        if (getHeaderValue(status.getId()) instanceof Status) {
+            for (int i = 0; i < status.getFiles().size(); i++)
+                filesCache.put(fileKey(status.getId(), i), status.getFiles().get(i));
+        }
+        headerCache.put(status.getId(), new Header(status));
+        return status;
+    }
+    
+    /**
+     * Updates the status of an audit replay, and the status of a single one of its files.
+     *
+     * @param status
+     *            the status
+     * @param fileIndex
+     *            the index of the file to update
+     * @return the status
+     */
+    public Status updateFile(Status status, int fileIndex) {
+        filesCache.put(fileKey(status.getId(), fileIndex), status.getFiles().get(fileIndex));
+        return updateHeader(status);
+    }
+    
+    /**
+     * Records that the audit replay is still active, without changing anything else in its status. This should be called while holding the lock.
+     *
+     * @param id
+     *            the audit replay id
+     */
+    public void touch(String id) {
+        Object value = getHeaderValue(id);
+        if (value instanceof Status) {
+            ((Status) value).setLastUpdated(new Date());
+            headerCache.put(id, value);
+        } else if (value != null) {
+            headerCache.put(id, new Header((Header) value, new Date()));
+        }
+    }
+    
     @CheckReturnValue
     public String delete(String id) {
+        Header header = toHeader(getHeaderValue(id));
+        if (header != null) {
+            for (int i = 0; i < header.numFiles; i++)
+                filesCache.evict(fileKey(id, i));
+        }
+        headerCache.evict(id);
         return "Evicted " + id;
     }
     
-    @CacheEvict(allEntries = true)
     public String deleteAll() {
+        headerCache.clear();
+        filesCache.clear();
         return "Evicted all entries";
     }
     
@@ -102,4 +253,77 @@ public class StatusCache {
         cacheInspector.forceUnlock(CACHE_NAME, id);
     }
     
+    // the cached value is either a Header, or a whole Status stored by an older instance
+    private Object getHeaderValue(String id) {
+        Cache.ValueWrapper wrapper = headerCache.get(id);
+        return (wrapper != null) ? wrapper.get() : null;
+    }
+    
+    private static Header toHeader(Object value) {
+        return (value instanceof Status) ? new Header((Status) value) : (Header) value;
+    }
+    
+    private static String fileKey(String id, int fileIndex) {
+        return id + "/" + fileIndex;
+    }
+    
+    /**
+     * The cached portion of an audit replay's status which is not specific to any one file.
+     */
+    static final class Header implements Serializable {
+        private static final long serialVersionUID = -2613915325434722405L;
+        
+        private final String id;
+        private final Status.ReplayState state;
+        private final String pathUri;
+        private final long sendRate;
+        private final int parallelism;
+        private final boolean distributed;
+        private final String owner;
+        private final Date lastUpdated;
+        private final boolean replayUnfinishedFiles;
+        private final int numFiles;
+        // identifies this write of the header
+        private final long stamp = ThreadLocalRandom.current().nextLong();
+        
+        private Header(Status status) {
+            this.id = status.getId();
+            this.state = status.getState();
+            this.pathUri = status.getPathUri();
+            this.sendRate = status.getSendRate();
+            this.parallelism = status.getParallelism();
+            this.distributed = status.isDistributed();
+            this.owner = status.getOwner();
+            this.lastUpdated = status.getLastUpdated();
+            this.replayUnfinishedFiles = status.isReplayUnfinishedFiles();
+            this.numFiles = status.getFiles().size();
+        }
+        
+        private Header(Header header, Date lastUpdated) {
+            this.id = header.id;
+            this.state = header.state;
+            this.pathUri = header.pathUri;
+            this.sendRate = header.sendRate;
+            this.parallelism = header.parallelism;
+            this.distributed = header.distributed;
+            this.owner = header.owner;
+            this.lastUpdated = lastUpdated;
+            this.replayUnfinishedFiles = header.replayUnfinishedFiles;
+            this.numFiles = header.numFiles;
+        }
+        
+        private Status toStatus() {
+            Status status = new Status();
+            status.setId(id);
+            status.setState(state);
+            status.setPathUri(pathUri);
+            status.setSendRate(sendRate);
+            status.setParallelism(parallelism);
+            status.setDistributed(distributed);
+            status.setOwner(owner);
+            status.setLastUpdated(lastUpdated);
+            status.setReplayUnfinishedFiles(replayUnfinishedFiles);
+            return status;
+        }
+    }
 }
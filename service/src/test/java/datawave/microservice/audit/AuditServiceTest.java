@@ -4,6 +4,7 @@ import static datawave.security.authorization.DatawaveUser.UserType.USER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -39,6 +40,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.Message;
@@ -50,6 +52,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -63,6 +66,7 @@ import datawave.microservice.audit.common.AuditMessage;
 import datawave.microservice.audit.common.AuditMessageSupplier;
 import datawave.microservice.audit.config.AuditProperties;
 import datawave.microservice.audit.health.HealthChecker;
+import datawave.microservice.audit.result.AuditResult;
 import datawave.microservice.authorization.jwt.JWTRestTemplate;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.security.authorization.DatawaveUser;
@@ -70,6 +74,7 @@ import datawave.security.authorization.SubjectIssuerDNPair;
 import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor;
 import datawave.webservice.common.audit.Auditor.AuditType;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -93,6 +98,9 @@ public class AuditServiceTest {
     @Autowired
     private FileAuditProperties fileAuditProperties;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     private SubjectIssuerDNPair DN;
     private String userDN = "userDn";
     private String query = "some query";
@@ -236,6 +244,130 @@ public class AuditServiceTest {
         assertEquals(0, received.size());
     }
     
+    @Test
+    public void testAuditMetrics() {
+        long published = meterRegistry.get("audit.publish").tag("outcome", "success").timer().count();
+        long audited = meterRegistry.get("audit.attempts").summary().count();
+        
+        Collection<String> roles = Collections.singleton("AuthorizedUser");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents uri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort).path("/audit/v1/audit").build();
+        
+        MultiValueMap<String,String> map = new LinkedMultiValueMap<>();
+        map.add(AuditParameters.USER_DN, userDN);
+        map.add(AuditParameters.QUERY_STRING, query);
+        map.add(AuditParameters.QUERY_AUTHORIZATIONS, authorizations);
+        map.add(AuditParameters.QUERY_AUDIT_TYPE, auditType.name());
+        map.add(AuditParameters.QUERY_SECURITY_MARKING_COLVIZ, "ALL");
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        ResponseEntity<String> response = jwtRestTemplate.exchange(requestEntity, String.class);
+        assertEquals(response.getStatusCode().value(), HttpStatus.OK.value());
+        
+        assertEquals(published + 1, meterRegistry.get("audit.publish").tag("outcome", "success").timer().count());
+        assertEquals(audited + 1, meterRegistry.get("audit.attempts").summary().count());
+        assertEquals(0.0, meterRegistry.get("audit.confirmAck.pending").gauge().value());
+        assertNotNull(meterRegistry.get("audit.source.buffered").gauge());
+    }
+    
+    @Test
+    public void testBulkAuditMessaging() throws Exception {
+        Collection<String> roles = Collections.singleton("AuthorizedUser");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents uri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort).path("/audit/v1/audits").build();
+        
+        ObjectMapper mapper = new ObjectMapper();
+        
+        Map<String,Object> first = new HashMap<>();
+        first.put(AuditParameters.USER_DN, userDN);
+        first.put(AuditParameters.QUERY_STRING, query);
+        first.put(AuditParameters.QUERY_AUTHORIZATIONS, authorizations);
+        first.put(AuditParameters.QUERY_AUDIT_TYPE, auditType.name());
+        first.put(AuditParameters.QUERY_SECURITY_MARKING_COLVIZ, "ALL");
+        first.put(AuditParameters.QUERY_SELECTORS, Arrays.asList("sel1", "sel2"));
+        
+        // missing the query string
+        Map<String,Object> second = new HashMap<>(first);
+        second.remove(AuditParameters.QUERY_STRING);
+        
+        Map<String,Object> third = new HashMap<>(first);
+        third.put(AuditParameters.AUDIT_ID, "bulk-audit-id");
+        
+        String body = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n" + mapper.writeValueAsString(third) + "\n";
+        
+        MultiValueMap<String,String> headers = new LinkedMultiValueMap<>();
+        headers.add("Content-Type", MediaType.APPLICATION_NDJSON_VALUE);
+        
+        RequestEntity<String> requestEntity = jwtRestTemplate.createRequestEntity(authUser, body, headers, HttpMethod.POST, uri);
+        
+        ResponseEntity<String> response = jwtRestTemplate.exchange(requestEntity, String.class);
+        assertEquals(response.getStatusCode().value(), HttpStatus.OK.value());
+        
+        List<AuditResult> results = mapper.readValue(response.getBody(), new TypeReference<List<AuditResult>>() {});
+        assertEquals(3, results.size());
+        
+        assertEquals(0, results.get(0).getIndex());
+        assertNotNull(results.get(0).getAuditId());
+        assertNull(results.get(0).getError());
+        
+        assertEquals(1, results.get(1).getIndex());
+        assertNotNull(results.get(1).getError());
+        
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals("bulk-audit-id", results.get(2).getAuditId());
+        assertNull(results.get(2).getError());
+        
+        assertEquals(2, auditMessages.size());
+        assertEquals("sel1,sel2", auditMessages.get(0).getAuditParameters().get(AuditParameters.QUERY_SELECTORS));
+    }
+    
+    @DirtiesContext
+    @Test
+    public void testBulkAuditTooLarge() throws Exception {
+        auditProperties.setMaxBulkAudits(2);
+        
+        // the request is rejected as a whole, so none of the audits before the limit are published
+        assertThrows(HttpStatusCodeException.class, () -> jwtRestTemplate.exchange(createBulkAuditRequest(3, ""), String.class));
+        assertTrue(auditMessages.isEmpty());
+    }
+    
+    @Test
+    public void testBulkAuditMalformed() throws Exception {
+        // the request is rejected as a whole, so none of the audits before the malformed one are published
+        assertThrows(HttpStatusCodeException.class, () -> jwtRestTemplate.exchange(createBulkAuditRequest(2, "{\"bad\""), String.class));
+        assertTrue(auditMessages.isEmpty());
+    }
+    
+    private RequestEntity<String> createBulkAuditRequest(int numAudits, String suffix) throws Exception {
+        Collection<String> roles = Collections.singleton("AuthorizedUser");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents uri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort).path("/audit/v1/audits").build();
+        
+        Map<String,Object> audit = new HashMap<>();
+        audit.put(AuditParameters.USER_DN, userDN);
+        audit.put(AuditParameters.QUERY_STRING, query);
+        audit.put(AuditParameters.QUERY_AUTHORIZATIONS, authorizations);
+        audit.put(AuditParameters.QUERY_AUDIT_TYPE, auditType.name());
+        audit.put(AuditParameters.QUERY_SECURITY_MARKING_COLVIZ, "ALL");
+        
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < numAudits; i++)
+            body.append(new ObjectMapper().writeValueAsString(audit)).append("\n");
+        body.append(suffix);
+        
+        MultiValueMap<String,String> headers = new LinkedMultiValueMap<>();
+        headers.add("Content-Type", MediaType.APPLICATION_NDJSON_VALUE);
+        
+        return jwtRestTemplate.createRequestEntity(authUser, body.toString(), headers, HttpMethod.POST, uri);
+    }
+    
     @DirtiesContext
     @Test
     public void testUnhealthyFileAuditDisabled() {
@@ -664,7 +796,7 @@ public class AuditServiceTest {
         public AuditMessageSupplier testAuditSource(List<AuditMessage> auditMessages) {
             return new AuditMessageSupplier() {
                 @Override
-                public boolean send(Message<AuditMessage> auditMessage) {
+                public boolean send(Message<AuditMessage> auditMessage, boolean mayBlock) {
                     auditMessages.add(auditMessage.getPayload());
                     return true;
                 }
@@ -0,0 +1,126 @@
+package datawave.microservice.audit.auditors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.webservice.common.audit.AuditParameters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MeteredAuditorTest {
+    
+    private MeterRegistry meterRegistry;
+    
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    
+    @Test
+    public void testSuccessfulAudits() throws Exception {
+        MeteredAuditor auditor = new MeteredAuditor("test", msg -> {}, meterRegistry);
+        
+        auditor.audit(new AuditParameters());
+        auditor.audit(Arrays.asList(new AuditParameters(), new AuditParameters()));
+        
+        assertEquals(3.0, meterRegistry.get("audit.sink.audits").tag("sink", "test").tag("outcome", "success").counter().count());
+        assertEquals(0.0, meterRegistry.get("audit.sink.audits").tag("sink", "test").tag("outcome", "failure").counter().count());
+        assertEquals(2, meterRegistry.get("audit.sink.write").tag("sink", "test").timer().count());
+        assertTrue(auditor.getLatencyMillis(0.99) >= 0);
+    }
+    
+    @Test
+    public void testFailedAudits() {
+        MeteredAuditor auditor = new MeteredAuditor("test", msg -> {
+            throw new IllegalStateException("failed");
+        }, meterRegistry);
+        
+        assertThrows(IllegalStateException.class, () -> auditor.audit(Arrays.asList(new AuditParameters(), new AuditParameters())));
+        
+        assertEquals(0.0, meterRegistry.get("audit.sink.audits").tag("sink", "test").tag("outcome", "success").counter().count());
+        assertEquals(2.0, meterRegistry.get("audit.sink.audits").tag("sink", "test").tag("outcome", "failure").counter().count());
+        assertEquals(1, meterRegistry.get("audit.sink.write").tag("sink", "test").timer().count());
+        assertEquals(0.0, meterRegistry.get("audit.sink.inflight").tag("sink", "test").gauge().value());
+    }
+    
+    @Test
+    public void testHungAudits() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MeteredAuditor auditor = new MeteredAuditor("test", msg -> {
+            started.countDown();
+            release.await();
+        }, meterRegistry);
+        
+        Thread thread = new Thread(() -> {
+            try {
+                auditor.audit(new AuditParameters());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            
+            assertEquals(1.0, meterRegistry.get("audit.sink.inflight").tag("sink", "test").gauge().value());
+            assertEquals(1, auditor.getNumHung(10));
+            assertEquals(0, auditor.getNumHung(TimeUnit.MINUTES.toMillis(1)));
+        } finally {
+            release.countDown();
+            thread.join();
+        }
+        
+        assertEquals(0, auditor.getNumHung(0));
+    }
+    
+    @Test
+    public void testCallsBeyondSlotsAreNotTracked() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MeteredAuditor auditor = new MeteredAuditor("test", msg -> {
+            if (msg.getAuditId() != null) {
+                started.countDown();
+                release.await();
+            }
+        }, meterRegistry, 1);
+        
+        AuditParameters blockingAudit = new AuditParameters();
+        blockingAudit.setAuditId("blocking");
+        Thread thread = new Thread(() -> {
+            try {
+                auditor.audit(blockingAudit);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            
+            // the only slot is claimed, so this call is metered without being tracked
+            auditor.audit(new AuditParameters());
+            assertEquals(1, auditor.getNumInFlight());
+            assertEquals(1.0, meterRegistry.get("audit.sink.audits").tag("sink", "test").tag("outcome", "success").counter().count());
+        } finally {
+            release.countDown();
+            thread.join();
+        }
+        
+        // the slot is released once the blocking call returns, and is available to the next call
+        assertEquals(0, auditor.getNumInFlight());
+        auditor.audit(new AuditParameters());
+        assertEquals(3, meterRegistry.get("audit.sink.write").tag("sink", "test").timer().count());
+    }
+}
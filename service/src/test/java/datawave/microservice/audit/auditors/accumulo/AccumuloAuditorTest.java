@@ -6,9 +6,14 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.accumulo.core.client.AccumuloClient;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -57,6 +62,7 @@ public class AccumuloAuditorTest {
     public void testBeansPresent() {
         assertTrue(context.containsBean("accumuloAuditSink"));
         assertTrue(context.containsBean("accumuloAuditor"));
+        assertTrue(context.containsBean("meteredAccumuloAuditor"));
     }
     
     @Test
@@ -107,6 +113,46 @@ public class AccumuloAuditorTest {
         assertEquals(auditParams.toString(), value.toString());
     }
     
+    @Test
+    public void testConcurrentAudits() throws Exception {
+        accumuloClient.tableOperations().deleteRows(accumuloAuditProperties.getTableName(), null, null);
+        
+        int numThreads = 4;
+        int auditsPerThread = 25;
+        
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numThreads; thread++) {
+                String userDn = "someUser" + thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < auditsPerThread; i++) {
+                        AuditParameters auditParams = new AuditParameters();
+                        auditParams.setUserDn(userDn);
+                        auditParams.setAuths("AUTH1,AUTH2");
+                        auditParams.setQuery("test query " + i);
+                        auditParams.setAuditType(Auditor.AuditType.ACTIVE);
+                        auditParams.setColviz(new ColumnVisibility("ALL"));
+                        auditParams.setQueryDate(new Date(i));
+                        accumuloAuditor.audit(auditParams);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // every audit should be visible as soon as the audit call returns
+        int numEntries = 0;
+        Scanner scanner = accumuloClient.createScanner(accumuloAuditProperties.getTableName(), new Authorizations("ALL"));
+        for (Map.Entry<Key,Value> ignored : scanner)
+            numEntries++;
+        assertEquals(numThreads * auditsPerThread, numEntries);
+    }
+    
     @Test
     public void testNoneAudit() throws Exception {
         accumuloClient.tableOperations().deleteRows(accumuloAuditProperties.getTableName(), null, null);
@@ -0,0 +1,232 @@
+package datawave.microservice.audit.auditors.file;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor;
+
+public class FileAuditorTest {
+    
+    private File tempDir;
+    
+    private FileAuditor fileAuditor;
+    
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("fileAuditorTest").toFile();
+        
+        // @formatter:off
+        fileAuditor = new FileAuditor.Builder()
+                .setPath(tempDir.toURI().toString())
+                .setDurability(FileAuditor.Durability.HFLUSH)
+                .build();
+        // @formatter:on
+    }
+    
+    @AfterEach
+    public void cleanup() throws Exception {
+        fileAuditor.close();
+        FileUtils.deleteDirectory(tempDir);
+    }
+    
+    @Test
+    public void testAuditsVisibleBeforeClose() throws Exception {
+        fileAuditor.audit(createAuditParams("someUser", 0));
+        fileAuditor.audit(createAuditParams("someUser", 1));
+        
+        // both audits should be written to the same file, and be visible while the file is still open
+        List<String> lines = readAudits();
+        assertEquals(2, lines.size());
+        assertEquals(1, listAuditFiles().size());
+    }
+    
+    @Test
+    public void testConcurrentAudits() throws Exception {
+        int numThreads = 4;
+        int auditsPerThread = 25;
+        
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numThreads; thread++) {
+                String userDn = "someUser" + thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < auditsPerThread; i++) {
+                        fileAuditor.audit(createAuditParams(userDn, i));
+                    }
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        assertEquals(numThreads * auditsPerThread, readAudits().size());
+    }
+    
+    @Test
+    public void testShardedAudits() throws Exception {
+        fileAuditor.close();
+        
+        int numThreads = 4;
+        int auditsPerThread = 25;
+        
+        // @formatter:off
+        fileAuditor = new FileAuditor.Builder()
+                .setPath(tempDir.toURI().toString())
+                .setDurability(FileAuditor.Durability.HFLUSH)
+                .setShards(numThreads)
+                .build();
+        // @formatter:on
+        
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numThreads; thread++) {
+                String userDn = "someUser" + thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < auditsPerThread; i++) {
+                        fileAuditor.audit(createAuditParams(userDn, i));
+                    }
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        // each thread is assigned its own shard, so each thread's audits should be written to a separate file
+        List<File> files = listAuditFiles();
+        assertEquals(numThreads, files.size());
+        for (File file : files) {
+            assertTrue(file.getName().matches("audit-.*-[0-3]\\.json"), file.getName());
+            
+            List<String> lines = FileUtils.readLines(file, "UTF-8");
+            assertEquals(auditsPerThread, lines.size());
+            String userDn = lines.get(0).replaceAll(".*\"" + AuditParameters.USER_DN + "\":\"([^\"]*)\".*", "$1");
+            assertTrue(lines.stream().allMatch(line -> line.contains("\"" + AuditParameters.USER_DN + "\":\"" + userDn + "\"")), file.getName());
+        }
+    }
+    
+    @Test
+    public void testAuditAfterClose() throws Exception {
+        fileAuditor.audit(createAuditParams("someUser", 0));
+        fileAuditor.close();
+        
+        // file names are based on the creation time, so make sure that the new file gets a different name
+        Thread.sleep(10);
+        
+        // a new file should be created for audits received after the auditor is closed
+        fileAuditor.audit(createAuditParams("someUser", 1));
+        
+        assertEquals(2, readAudits().size());
+    }
+    
+    @Test
+    public void testAuditAfterRename() throws Exception {
+        fileAuditor.audit(createAuditParams("someUser", 0));
+        
+        // rename the open file, the same way that audit replay queues it
+        File file = listAuditFiles().get(0);
+        File queuedFile = new File(tempDir, "_QUEUED." + file.getName());
+        assertTrue(file.renameTo(queuedFile));
+        
+        // file names are based on the creation time, so make sure that the new file gets a different name
+        Thread.sleep(10);
+        
+        // the audit must end up in a new file, rather than only in the renamed file
+        fileAuditor.audit(createAuditParams("someUser", 1));
+        
+        List<File> files = listAuditFiles();
+        assertEquals(2, files.size());
+        List<String> lines = FileUtils.readLines(files.stream().filter(f -> !f.equals(queuedFile)).findFirst().get(), "UTF-8");
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("test query 1"));
+    }
+    
+    @Test
+    public void testCompressedAuditsVisibleBeforeClose() throws Exception {
+        fileAuditor.close();
+        
+        // @formatter:off
+        fileAuditor = new FileAuditor.Builder()
+                .setPath(tempDir.toURI().toString())
+                .setDurability(FileAuditor.Durability.HFLUSH)
+                .setCodec("gzip")
+                .build();
+        // @formatter:on
+        
+        fileAuditor.audit(createAuditParams("someUser", 0));
+        fileAuditor.audit(createAuditParams("someUser", 1));
+        
+        // each group of audits is written as a complete gzip member, so both audits should be readable while the file is still open
+        File[] files = tempDir.listFiles(f -> f.getName().endsWith(".json.gz"));
+        assertEquals(1, files.length);
+        
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(files[0])), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("test query 0"));
+        assertTrue(lines.get(1).contains("test query 1"));
+    }
+    
+    private AuditParameters createAuditParams(String userDn, int i) {
+        AuditParameters auditParams = new AuditParameters();
+        auditParams.setUserDn(userDn);
+        auditParams.setAuths("AUTH1,AUTH2");
+        auditParams.setQuery("test query " + i);
+        auditParams.setAuditType(Auditor.AuditType.ACTIVE);
+        auditParams.setColviz(new ColumnVisibility("ALL"));
+        auditParams.setQueryDate(new Date());
+        auditParams.setAuditId(userDn + "-" + i);
+        return auditParams;
+    }
+    
+    private List<File> listAuditFiles() {
+        return Arrays.stream(tempDir.listFiles()).filter(f -> f.getName().endsWith(".json")).collect(Collectors.toList());
+    }
+    
+    private List<String> readAudits() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (File file : listAuditFiles()) {
+            lines.addAll(FileUtils.readLines(file, "UTF-8"));
+        }
+        return lines;
+    }
+}
@@ -65,6 +65,7 @@ public class LogAuditorTest {
     public void testBeansPresent() {
         assertTrue(context.containsBean("logAuditSink"));
         assertTrue(context.containsBean("logAuditor"));
+        assertTrue(context.containsBean("meteredLogAuditor"));
     }
     
     @Test
@@ -0,0 +1,89 @@
+package datawave.microservice.audit.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.jupiter.api.Test;
+
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+public class AuditMessageBatchConsumerTest {
+    
+    @Test
+    public void onMessagesTest() throws Exception {
+        AuditParameters activeParams = createAuditParams("someUser", AuditType.ACTIVE);
+        AuditParameters noneParams = createAuditParams("otherUser", AuditType.NONE);
+        AuditParameters passiveParams = createAuditParams("anotherUser", AuditType.PASSIVE);
+        
+        TestAuditor auditor = new TestAuditor();
+        
+        AuditMessageBatchConsumer auditMessageHandler = new AuditMessageBatchConsumer(auditor);
+        
+        auditMessageHandler.accept(Arrays.asList(AuditMessage.fromParams(activeParams), AuditMessage.fromParams(noneParams),
+                        AuditMessage.fromParams(passiveParams)));
+        
+        // the whole batch should be audited in a single call, without the NONE audit
+        assertEquals(1, auditor.getNumCalls());
+        assertEquals(2, auditor.getAuditParameters().size());
+        
+        assertParamsEqual(activeParams, auditor.getAuditParameters().get(0));
+        assertParamsEqual(passiveParams, auditor.getAuditParameters().get(1));
+    }
+    
+    private static AuditParameters createAuditParams(String userDn, AuditType auditType) {
+        AuditParameters auditParams = new AuditParameters();
+        auditParams.setUserDn(userDn);
+        auditParams.setAuths("AUTH1,AUTH2");
+        auditParams.setQuery("test query");
+        auditParams.setAuditType(auditType);
+        auditParams.setColviz(new ColumnVisibility("ALL"));
+        auditParams.setQueryDate(new Date());
+        return auditParams;
+    }
+    
+    private static void assertParamsEqual(AuditParameters expectedParams, AuditParameters receivedParams) {
+        Map<String,String> received = receivedParams.toMap();
+        Map<String,String> expected = expectedParams.toMap();
+        
+        for (String param : expected.keySet()) {
+            assertEquals(expected.get(param), received.get(param));
+            received.remove(param);
+        }
+        
+        assertEquals(0, received.size());
+    }
+    
+    private static class TestAuditor implements Auditor {
+        
+        List<AuditParameters> auditParameters = new ArrayList<>();
+        int numCalls = 0;
+        
+        @Override
+        public void audit(AuditParameters msg) throws Exception {
+            throw new UnsupportedOperationException("Audits should be received as a batch");
+        }
+        
+        @Override
+        public void audit(Collection<AuditParameters> msgs) throws Exception {
+            numCalls++;
+            auditParameters.addAll(msgs);
+        }
+        
+        public List<AuditParameters> getAuditParameters() {
+            return auditParameters;
+        }
+        
+        public int getNumCalls() {
+            return numCalls;
+        }
+    }
+}
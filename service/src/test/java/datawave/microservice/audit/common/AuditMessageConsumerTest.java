@@ -26,7 +26,7 @@ public class AuditMessageConsumerTest {
         
         TestAuditor auditor = new TestAuditor();
         
-        AuditMessageConsumer auditMessageHandler = new AuditMessageConsumer(new AuditParameters(), auditor);
+        AuditMessageConsumer auditMessageHandler = new AuditMessageConsumer(auditor);
         
         auditMessageHandler.accept(AuditMessage.fromParams(auditParams));
         
@@ -0,0 +1,136 @@
+package datawave.microservice.audit.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor.AuditType;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+public class AuditMessageSupplierTest {
+    
+    private static final int CAPACITY = 4;
+    
+    @Test
+    public void testRejectWhenFull() {
+        AuditMessageSupplier supplier = new AuditMessageSupplier(CAPACITY, AuditMessageSupplier.OverflowPolicy.REJECT, 0L);
+        
+        // with no subscribers, messages are buffered until the buffer is full
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(supplier.send(createMessage(i)));
+        }
+        assertEquals(CAPACITY, supplier.getBufferedCount());
+        
+        assertFalse(supplier.send(createMessage(CAPACITY)));
+        assertEquals(1L, supplier.getEmitFailures(Sinks.EmitResult.FAIL_OVERFLOW));
+        assertEquals(CAPACITY, supplier.getBufferedCount());
+    }
+    
+    @Test
+    public void testBlockUntilTimeout() {
+        AuditMessageSupplier supplier = new AuditMessageSupplier(CAPACITY, AuditMessageSupplier.OverflowPolicy.BLOCK, 50L);
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(supplier.send(createMessage(i)));
+        }
+        
+        long startTime = System.nanoTime();
+        assertFalse(supplier.send(createMessage(CAPACITY)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 50L);
+        assertEquals(1L, supplier.getEmitFailures(Sinks.EmitResult.FAIL_OVERFLOW));
+    }
+    
+    @Test
+    public void testBlockUntilDrained() throws Exception {
+        AuditMessageSupplier supplier = new AuditMessageSupplier(CAPACITY, AuditMessageSupplier.OverflowPolicy.BLOCK, TimeUnit.SECONDS.toMillis(10));
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(supplier.send(createMessage(i)));
+        }
+        
+        CompletableFuture<Boolean> blockedSend = CompletableFuture.supplyAsync(() -> supplier.send(createMessage(CAPACITY)));
+        Thread.sleep(50);
+        assertFalse(blockedSend.isDone());
+        
+        // once a subscriber drains the buffer, the blocked message can be sent
+        Disposable subscriber = supplier.get().subscribe();
+        try {
+            assertTrue(blockedSend.get(5, TimeUnit.SECONDS));
+            assertEquals(0L, supplier.getEmitFailures(Sinks.EmitResult.FAIL_OVERFLOW));
+        } finally {
+            subscriber.dispose();
+        }
+    }
+    
+    @Test
+    public void testNoBlockWhenNotAllowed() {
+        AuditMessageSupplier supplier = new AuditMessageSupplier(CAPACITY, AuditMessageSupplier.OverflowPolicy.BLOCK, TimeUnit.SECONDS.toMillis(10));
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(supplier.send(createMessage(i)));
+        }
+        
+        // a thread which may not block is rejected immediately, rather than waiting out the block timeout
+        long startTime = System.nanoTime();
+        assertFalse(supplier.send(createMessage(CAPACITY), false));
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime) < 5L);
+        assertEquals(1L, supplier.getEmitFailures(Sinks.EmitResult.FAIL_OVERFLOW));
+    }
+    
+    @Test
+    public void testConcurrentSends() throws Exception {
+        int numThreads = 4;
+        int sendsPerThread = 250;
+        AuditMessageSupplier supplier = new AuditMessageSupplier(numThreads * sendsPerThread, AuditMessageSupplier.OverflowPolicy.REJECT, 0L);
+        
+        // concurrent sends are serialized, so none of them are rejected as non-serialized emissions
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numThreads; thread++) {
+                futures.add(executor.submit(() -> {
+                    int sent = 0;
+                    for (int i = 0; i < sendsPerThread; i++) {
+                        if (supplier.send(createMessage(i)))
+                            sent++;
+                    }
+                    return sent;
+                }));
+            }
+            
+            for (Future<Integer> future : futures) {
+                assertEquals(sendsPerThread, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        assertEquals(numThreads * sendsPerThread, supplier.getBufferedCount());
+        assertEquals(0L, supplier.getEmitFailures(Sinks.EmitResult.FAIL_NON_SERIALIZED));
+    }
+    
+    private Message<AuditMessage> createMessage(int i) {
+        AuditParameters auditParams = new AuditParameters();
+        auditParams.setUserDn("someUser");
+        auditParams.setAuths("AUTH1,AUTH2");
+        auditParams.setQuery("test query " + i);
+        auditParams.setAuditType(AuditType.ACTIVE);
+        auditParams.setColviz(new ColumnVisibility("ALL"));
+        auditParams.setQueryDate(new Date());
+        auditParams.setAuditId("auditId" + i);
+        return MessageBuilder.withPayload(AuditMessage.fromParams(auditParams)).setCorrelationId(auditParams.getAuditId()).build();
+    }
+}
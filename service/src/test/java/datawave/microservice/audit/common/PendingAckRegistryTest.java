@@ -0,0 +1,206 @@
+package datawave.microservice.audit.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PendingAckRegistryTest {
+    
+    private ScheduledExecutorService scheduler;
+    
+    private MeterRegistry meterRegistry;
+    
+    private PendingAckRegistry registry;
+    
+    @BeforeEach
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new PendingAckRegistry(scheduler, 1L, 4, meterRegistry);
+    }
+    
+    @AfterEach
+    public void teardown() {
+        registry.close();
+        scheduler.shutdownNow();
+    }
+    
+    @Test
+    public void testAcknowledge() throws Exception {
+        PendingAckRegistry.PendingAck first = registry.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+        PendingAckRegistry.PendingAck second = registry.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+        assertNotEquals(first.getCorrelationId(), second.getCorrelationId());
+        assertEquals(2, registry.getNumPending());
+        
+        assertTrue(registry.acknowledge(second.getCorrelationId()));
+        assertTrue(second.getResult().get(5, TimeUnit.SECONDS));
+        assertFalse(first.getResult().isDone());
+        assertEquals(1.0, meterRegistry.get("audit.confirmAck.pending").gauge().value());
+        
+        // a second ack for the same message is a duplicate
+        assertFalse(registry.acknowledge(second.getCorrelationId()));
+        assertEquals(1.0, unmatched("duplicate"));
+    }
+    
+    @Test
+    public void testExpire() throws Exception {
+        PendingAckRegistry.PendingAck pendingAck = registry.reserve(10L).join();
+        
+        assertFalse(pendingAck.getResult().get(5, TimeUnit.SECONDS));
+        assertEquals(0, registry.getNumPending());
+        
+        // an ack which arrives after the message timed out is late
+        assertFalse(registry.acknowledge(pendingAck.getCorrelationId()));
+        assertEquals(1.0, unmatched("late"));
+        assertEquals(0.0, unmatched("orphaned"));
+    }
+    
+    @Test
+    public void testCancel() {
+        PendingAckRegistry.PendingAck pendingAck = registry.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+        pendingAck.cancel();
+        
+        assertFalse(pendingAck.getResult().join());
+        assertEquals(0, registry.getNumPending());
+        
+        assertFalse(registry.acknowledge(pendingAck.getCorrelationId()));
+        assertEquals(1.0, unmatched("orphaned"));
+    }
+    
+    @Test
+    public void testOrphanedAcks() {
+        assertFalse(registry.acknowledge("some-audit-id"));
+        assertFalse(registry.acknowledge(null));
+        
+        // correlation IDs issued by another registry are not recognized
+        PendingAckRegistry other = new PendingAckRegistry(scheduler, 1L, 4, new SimpleMeterRegistry());
+        try {
+            assertFalse(registry.acknowledge(other.reserve(TimeUnit.MINUTES.toMillis(1)).join().getCorrelationId()));
+        } finally {
+            other.close();
+        }
+        
+        assertEquals(3.0, unmatched("orphaned"));
+    }
+    
+    @Test
+    public void testClose() {
+        PendingAckRegistry.PendingAck pendingAck = registry.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+        registry.close();
+        
+        assertFalse(pendingAck.getResult().join());
+        assertEquals(0, registry.getNumPending());
+    }
+    
+    @Test
+    public void testWindow() throws Exception {
+        PendingAckRegistry windowed = new PendingAckRegistry(scheduler, 1L, 4, 2, PendingAckRegistry.CompletionOrder.UNORDERED, new SimpleMeterRegistry());
+        try {
+            PendingAckRegistry.PendingAck first = windowed.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+            PendingAckRegistry.PendingAck second = windowed.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+            
+            // the window is full, so the third reservation waits until an earlier ack is resolved
+            CompletableFuture<PendingAckRegistry.PendingAck> third = windowed.reserve(TimeUnit.MINUTES.toMillis(1));
+            assertFalse(third.isDone());
+            assertEquals(1, windowed.getNumWaiting());
+            
+            assertTrue(windowed.acknowledge(first.getCorrelationId()));
+            PendingAckRegistry.PendingAck thirdAck = third.get(5, TimeUnit.SECONDS);
+            assertEquals(0, windowed.getNumWaiting());
+            assertEquals(2, windowed.getNumPending());
+            
+            // cancelled acks free their place in the window too
+            second.cancel();
+            assertTrue(windowed.reserve(TimeUnit.MINUTES.toMillis(1)).isDone());
+            
+            CompletableFuture<PendingAckRegistry.PendingAck> waiting = windowed.reserve(TimeUnit.MINUTES.toMillis(1));
+            assertFalse(waiting.isDone());
+            assertTrue(windowed.acknowledge(thirdAck.getCorrelationId()));
+            assertNotNull(waiting.get(5, TimeUnit.SECONDS));
+            
+            // reservations still waiting when the registry is closed fail
+            CompletableFuture<PendingAckRegistry.PendingAck> closed = windowed.reserve(TimeUnit.MINUTES.toMillis(1));
+            windowed.close();
+            assertThrows(ExecutionException.class, () -> closed.get(5, TimeUnit.SECONDS));
+        } finally {
+            windowed.close();
+        }
+    }
+    
+    @Test
+    public void testOrderedCompletion() throws Exception {
+        PendingAckRegistry ordered = new PendingAckRegistry(scheduler, 1L, 4, 0, PendingAckRegistry.CompletionOrder.ORDERED, new SimpleMeterRegistry());
+        try {
+            List<String> completed = new CopyOnWriteArrayList<>();
+            PendingAckRegistry.PendingAck first = ordered.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+            PendingAckRegistry.PendingAck second = ordered.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+            PendingAckRegistry.PendingAck third = ordered.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+            for (PendingAckRegistry.PendingAck pendingAck : Arrays.asList(first, second, third))
+                pendingAck.getResult().thenRun(() -> completed.add(pendingAck.getCorrelationId()));
+            
+            // later acks are held until every earlier ack has been resolved
+            assertTrue(ordered.acknowledge(third.getCorrelationId()));
+            assertTrue(ordered.acknowledge(second.getCorrelationId()));
+            assertFalse(second.getResult().isDone());
+            assertFalse(third.getResult().isDone());
+            assertEquals(1, ordered.getNumPending());
+            
+            first.cancel();
+            assertFalse(first.getResult().join());
+            assertTrue(second.getResult().join());
+            assertTrue(third.getResult().join());
+            assertEquals(Arrays.asList(first.getCorrelationId(), second.getCorrelationId(), third.getCorrelationId()), completed);
+        } finally {
+            ordered.close();
+        }
+    }
+    
+    @Test
+    public void testOrderedCompletionOutsideLock() throws Exception {
+        PendingAckRegistry ordered = new PendingAckRegistry(scheduler, 1L, 4, 0, PendingAckRegistry.CompletionOrder.ORDERED, new SimpleMeterRegistry());
+        try {
+            PendingAckRegistry.PendingAck first = ordered.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+            PendingAckRegistry.PendingAck second = ordered.reserve(TimeUnit.MINUTES.toMillis(1)).join();
+            
+            // a callback which waits on another thread resolving an ack must not hold up that thread
+            CompletableFuture<Boolean> acknowledged = new CompletableFuture<>();
+            first.getResult().thenRun(() -> {
+                CompletableFuture<Boolean> other = CompletableFuture.supplyAsync(() -> ordered.acknowledge(second.getCorrelationId()));
+                try {
+                    acknowledged.complete(other.get(5, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    acknowledged.completeExceptionally(e);
+                }
+            });
+            
+            assertTrue(ordered.acknowledge(first.getCorrelationId()));
+            assertTrue(acknowledged.get(10, TimeUnit.SECONDS));
+            assertTrue(second.getResult().get(5, TimeUnit.SECONDS));
+        } finally {
+            ordered.close();
+        }
+    }
+    
+    private double unmatched(String reason) {
+        return meterRegistry.get("audit.confirmAck.unmatched").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,44 @@
+package datawave.microservice.audit.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class VirtualThreadsTest {
+    
+    @Test
+    public void testPlatformThread() {
+        assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+    }
+    
+    @Test
+    public void testVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        
+        Thread thread = VirtualThreads.newThreadFactory("test-").newThread(() -> {});
+        assertTrue(VirtualThreads.isVirtual(thread));
+        assertEquals("test-0", thread.getName());
+        
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            assertTrue(executor.submit(() -> VirtualThreads.isVirtual(Thread.currentThread())).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testUnsupported() {
+        assumeFalse(VirtualThreads.isSupported());
+        
+        assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.newThreadFactory("test-"));
+    }
+}
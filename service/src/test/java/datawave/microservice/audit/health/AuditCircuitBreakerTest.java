@@ -0,0 +1,127 @@
+package datawave.microservice.audit.health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.audit.config.AuditProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AuditCircuitBreakerTest {
+    
+    private AuditProperties.CircuitBreaker properties;
+    
+    private MeterRegistry meterRegistry;
+    
+    private AuditCircuitBreaker circuitBreaker;
+    
+    @BeforeEach
+    public void setup() {
+        properties = new AuditProperties.CircuitBreaker();
+        properties.setWindowSize(10);
+        properties.setMinimumAttempts(4);
+        properties.setFailureRateThreshold(50);
+        properties.setOpenDurationMillis(50L);
+        properties.setHalfOpenAttempts(2);
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new AuditCircuitBreaker(properties, meterRegistry);
+    }
+    
+    @Test
+    public void testOpensAtFailureRate() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        
+        // not enough attempts have been made to judge the failure rate
+        assertEquals(AuditCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+        
+        circuitBreaker.onSuccess();
+        assertEquals(AuditCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(1.0, meterRegistry.get("audit.circuitBreaker.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("audit.circuitBreaker.state").gauge().value());
+    }
+    
+    @Test
+    public void testStaysClosedBelowFailureRate() {
+        for (int i = 0; i < 20; i++) {
+            if (i % 3 == 0)
+                circuitBreaker.onFailure();
+            else
+                circuitBreaker.onSuccess();
+        }
+        
+        assertEquals(AuditCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+    
+    @Test
+    public void testOldAttemptsLeaveWindow() {
+        for (int i = 0; i < 3; i++)
+            circuitBreaker.onFailure();
+        
+        // the failures are pushed out of the window by later successes
+        for (int i = 0; i < 10; i++)
+            circuitBreaker.onSuccess();
+        
+        for (int i = 0; i < 4; i++)
+            circuitBreaker.onFailure();
+        
+        assertEquals(AuditCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        
+        circuitBreaker.onFailure();
+        assertEquals(AuditCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+    
+    @Test
+    public void testHalfOpenSuccessCloses() throws Exception {
+        open();
+        
+        Thread.sleep(properties.getOpenDurationMillis() * 2);
+        
+        // only the trial attempts are allowed through
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(AuditCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        
+        circuitBreaker.onSuccess();
+        assertEquals(AuditCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+    
+    @Test
+    public void testHalfOpenFailureReopens() throws Exception {
+        open();
+        
+        Thread.sleep(properties.getOpenDurationMillis() * 2);
+        
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        assertEquals(AuditCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+    
+    @Test
+    public void testDisabled() {
+        properties.setEnabled(false);
+        
+        for (int i = 0; i < 10; i++)
+            circuitBreaker.onFailure();
+        
+        assertEquals(AuditCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+    
+    private void open() {
+        for (int i = 0; i < properties.getMinimumAttempts(); i++)
+            circuitBreaker.onFailure();
+        assertEquals(AuditCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+}
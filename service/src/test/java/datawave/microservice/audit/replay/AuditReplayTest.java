@@ -10,7 +10,9 @@ import static datawave.webservice.common.audit.AuditParameters.QUERY_SECURITY_MA
 import static datawave.webservice.common.audit.AuditParameters.QUERY_STRING;
 import static datawave.webservice.common.audit.AuditParameters.USER_DN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -22,6 +24,7 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -70,6 +73,7 @@ import datawave.microservice.audit.health.HealthChecker;
 import datawave.microservice.audit.replay.config.ReplayProperties;
 import datawave.microservice.audit.replay.remote.Request;
 import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.audit.replay.status.StatusCache;
 import datawave.microservice.authorization.jwt.JWTRestTemplate;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.security.authorization.DatawaveUser;
@@ -103,6 +107,9 @@ public class AuditReplayTest {
     @Autowired
     private ReplayController replayController;
     
+    @Autowired
+    private StatusCache statusCache;
+    
     private static File tempDir;
     
     private SubjectIssuerDNPair DN;
@@ -1314,7 +1321,7 @@ public class AuditReplayTest {
         // @formatter:on
     }
     
-    // Test createAndStart, verify status, idleCheck, resume, verify audit messages
+    // Test createAndStart, verify status, verify a paused replay isn't idle, stop, resume, verify audit messages
     @Test
     public void createAndStartIdleCheckTest() throws Exception {
         Collection<String> roles = Collections.singleton("Administrator");
@@ -1381,6 +1388,18 @@ public class AuditReplayTest {
                 fileStatus);
         // @formatter:on
         
+        // a paused audit replay keeps its heartbeat going, so it must not be stopped as idle
+        Thread.sleep(replayProperties.getIdleTimeoutMillis() + 4 * replayProperties.getIdleCheckIntervalMillis());
+        status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        assertEquals(Status.ReplayState.RUNNING, status.getState());
+        
+        // Stop the audit replay request
+        UriComponents stopUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort)
+                        .path("/audit/v1/replay/" + replayId + "/stop").build();
+        ResponseEntity<String> stopResp = jwtRestTemplate.exchange(authUser, HttpMethod.PUT, stopUri, String.class);
+        
+        assertEquals(200, stopResp.getStatusCode().value());
+        
         // Check the status until it is stopped
         status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
         
@@ -1929,6 +1948,267 @@ public class AuditReplayTest {
         assertEquals(0, auditMessages.size());
     }
     
+    // Test createAndStart with multiple files replayed concurrently, verify status, verify audit messages
+    @Test
+    public void parallelReplayTest() throws Exception {
+        Collection<String> roles = Collections.singleton("Administrator");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents createAndStartUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort)
+                        .path("/audit/v1/replay/createAndStart").build();
+        
+        MultiValueMap<String,String> map = new LinkedMultiValueMap<>();
+        map.add("pathUri", tempDir.toURI().toString());
+        map.add("sendRate", "100");
+        map.add("parallelism", "2");
+        
+        // Create and start the audit replay request
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, createAndStartUri);
+        ResponseEntity<String> response = jwtRestTemplate.exchange(requestEntity, String.class);
+        
+        String replayId = response.getBody();
+        
+        // Check the status until it is finished
+        UriComponents statusUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort)
+                        .path("/audit/v1/replay/" + replayId + "/status").build();
+        Status status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        
+        long stopTime = System.currentTimeMillis() + TEST_TIMEOUT_MILLIS;
+        while (status.getState() != Status.ReplayState.FINISHED && (System.currentTimeMillis() < stopTime)) {
+            Thread.sleep(250);
+            status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        }
+        
+        // @formatter:off
+        assertStatus(
+                Status.ReplayState.FINISHED,
+                tempDir.toURI().toString(),
+                100L,
+                2,
+                false,
+                status);
+        // @formatter:on
+        assertEquals(2, status.getParallelism());
+        
+        Status.FileStatus fileStatus = status.getFiles().get(0);
+        // @formatter:off
+        assertFileStatus(
+                Status.FileState.FINISHED,
+                "_FINISHED.audit-20190227_000000.000.json",
+                1,
+                1,
+                0,
+                0,
+                false,
+                fileStatus);
+        // @formatter:on
+        
+        fileStatus = status.getFiles().get(1);
+        // @formatter:off
+        assertFileStatus(
+                Status.FileState.FINISHED,
+                "_FINISHED.audit-20190228_000000.000.json",
+                1,
+                1,
+                0,
+                0,
+                false,
+                fileStatus);
+        // @formatter:on
+        
+        // the files are replayed concurrently, so the order of the audit messages is not guaranteed
+        List<String> auditIds = new ArrayList<>();
+        while (!auditMessages.isEmpty())
+            auditIds.add(auditMessages.pop().getAuditParameters().get(AUDIT_ID));
+        Collections.sort(auditIds);
+        
+        assertEquals(Arrays.asList("readyAuditId1", "readyAuditId2"), auditIds);
+    }
+    
+    // Test createAndStart with a distributed audit replay, verify status, verify that the claims are released, verify audit messages
+    @Test
+    public void distributedReplayTest() throws Exception {
+        Collection<String> roles = Collections.singleton("Administrator");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents createAndStartUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort)
+                        .path("/audit/v1/replay/createAndStart").build();
+        
+        MultiValueMap<String,String> map = new LinkedMultiValueMap<>();
+        map.add("pathUri", tempDir.toURI().toString());
+        map.add("sendRate", "100");
+        map.add("distributed", "true");
+        
+        // Create and start the audit replay request
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, createAndStartUri);
+        ResponseEntity<String> response = jwtRestTemplate.exchange(requestEntity, String.class);
+        
+        String replayId = response.getBody();
+        
+        // Check the status until it is finished
+        UriComponents statusUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort)
+                        .path("/audit/v1/replay/" + replayId + "/status").build();
+        Status status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        
+        long stopTime = System.currentTimeMillis() + TEST_TIMEOUT_MILLIS;
+        while (status.getState() != Status.ReplayState.FINISHED && (System.currentTimeMillis() < stopTime)) {
+            Thread.sleep(250);
+            status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        }
+        
+        // @formatter:off
+        assertStatus(
+                Status.ReplayState.FINISHED,
+                tempDir.toURI().toString(),
+                100L,
+                2,
+                false,
+                status);
+        // @formatter:on
+        assertTrue(status.isDistributed());
+        
+        for (Status.FileStatus fileStatus : status.getFiles()) {
+            assertEquals(Status.FileState.FINISHED, fileStatus.getState());
+            assertEquals(1, fileStatus.getAuditsSent());
+            assertNull(fileStatus.getOwner());
+        }
+        
+        List<String> auditIds = new ArrayList<>();
+        while (!auditMessages.isEmpty())
+            auditIds.add(auditMessages.pop().getAuditParameters().get(AUDIT_ID));
+        Collections.sort(auditIds);
+        
+        assertEquals(Arrays.asList("readyAuditId1", "readyAuditId2"), auditIds);
+    }
+    
+    // Test that an idle replay owned by another instance is marked stopped
+    @Test
+    @DirtiesContext
+    public void stopIdleReplayTest() throws Exception {
+        assertIdleReplayStopped(100L);
+    }
+    
+    // Test that a paused replay is marked stopped once its owner stops heartbeating
+    @Test
+    @DirtiesContext
+    public void stopPausedIdleReplayTest() throws Exception {
+        assertIdleReplayStopped(0L);
+    }
+    
+    private void assertIdleReplayStopped(long sendRate) throws Exception {
+        Collection<String> roles = Collections.singleton("Administrator");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents createUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort).path("/audit/v1/replay/create")
+                        .build();
+        
+        MultiValueMap<String,String> map = new LinkedMultiValueMap<>();
+        map.add("pathUri", tempDir.toURI().toString());
+        map.add("sendRate", Long.toString(sendRate));
+        
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, createUri);
+        String replayId = jwtRestTemplate.exchange(requestEntity, String.class).getBody();
+        
+        // mark the replay as running on an instance which has stopped heartbeating. its last update ages past the idle timeout while we wait
+        Status deadStatus = statusCache.retrieve(replayId);
+        deadStatus.setState(Status.ReplayState.RUNNING);
+        deadStatus.setOwner("deadInstance");
+        statusCache.updateHeader(deadStatus);
+        
+        // Check the status until it is stopped
+        UriComponents statusUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort)
+                        .path("/audit/v1/replay/" + replayId + "/status").build();
+        Status status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        
+        long stopTime = System.currentTimeMillis() + TEST_TIMEOUT_MILLIS;
+        while (status.getState() != Status.ReplayState.STOPPED && (System.currentTimeMillis() < stopTime)) {
+            Thread.sleep(250);
+            status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        }
+        
+        assertEquals(Status.ReplayState.STOPPED, status.getState());
+        assertEquals("deadInstance", status.getOwner());
+        assertEquals(sendRate, status.getSendRate());
+        
+        // a stopped replay is left alone by later sweeps
+        Thread.sleep(replayProperties.getIdleTimeoutMillis() + 2 * replayProperties.getIdleCheckIntervalMillis());
+        status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        assertEquals(Status.ReplayState.STOPPED, status.getState());
+    }
+    
+    // Test that an idle replay owned by another instance is reclaimed and finished by this instance
+    @Test
+    @DirtiesContext
+    public void reclaimIdleReplayTest() throws Exception {
+        replayProperties.setIdleAction(ReplayProperties.IdleAction.RECLAIM);
+        
+        Collection<String> roles = Collections.singleton("Administrator");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents createUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort).path("/audit/v1/replay/create")
+                        .build();
+        
+        MultiValueMap<String,String> map = new LinkedMultiValueMap<>();
+        map.add("pathUri", tempDir.toURI().toString());
+        map.add("sendRate", "100");
+        
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, createUri);
+        String replayId = jwtRestTemplate.exchange(requestEntity, String.class).getBody();
+        
+        // mark the replay as running on an instance which has stopped updating its status
+        Status deadStatus = statusCache.retrieve(replayId);
+        deadStatus.setState(Status.ReplayState.RUNNING);
+        deadStatus.setOwner("deadInstance");
+        statusCache.updateHeader(deadStatus);
+        
+        // Check the status until it is finished
+        UriComponents statusUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort)
+                        .path("/audit/v1/replay/" + replayId + "/status").build();
+        Status status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        
+        long stopTime = System.currentTimeMillis() + TEST_TIMEOUT_MILLIS;
+        while (status.getState() != Status.ReplayState.FINISHED && (System.currentTimeMillis() < stopTime)) {
+            Thread.sleep(250);
+            status = toStatus(jwtRestTemplate.exchange(authUser, HttpMethod.GET, statusUri, String.class));
+        }
+        
+        assertEquals(Status.ReplayState.FINISHED, status.getState());
+        assertNotNull(status.getOwner());
+        assertNotEquals("deadInstance", status.getOwner());
+        
+        List<String> auditIds = new ArrayList<>();
+        while (!auditMessages.isEmpty())
+            auditIds.add(auditMessages.pop().getAuditParameters().get(AUDIT_ID));
+        Collections.sort(auditIds);
+        
+        assertEquals(Arrays.asList("readyAuditId1", "readyAuditId2"), auditIds);
+    }
+    
+    @Test
+    public void bogusParallelismTest() {
+        Collection<String> roles = Collections.singleton("Administrator");
+        DatawaveUser uathDWUser = new DatawaveUser(DN, USER, null, roles, null, System.currentTimeMillis());
+        DatawaveUserDetails authUser = new DatawaveUserDetails(Collections.singleton(uathDWUser), uathDWUser.getCreationTime());
+        
+        UriComponents createUri = UriComponentsBuilder.newInstance().scheme("https").host("localhost").port(webServicePort).path("/audit/v1/replay/create")
+                        .build();
+        
+        MultiValueMap<String,String> map = new LinkedMultiValueMap<>();
+        map.add("pathUri", tempDir.toURI().toString());
+        map.add("parallelism", "0");
+        
+        // Create the audit replay request
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, createUri);
+        
+        HttpClientErrorException thrown = assertThrows(HttpClientErrorException.class, () -> jwtRestTemplate.exchange(requestEntity, String.class));
+        assertEquals(422, thrown.getRawStatusCode());
+        assertTrue(thrown.getResponseBodyAsString().contains("Parallelism must be > 0"));
+    }
+    
     @Test
     public void bogusSendRateTest() {
         Collection<String> roles = Collections.singleton("Administrator");
@@ -2727,6 +3007,11 @@ public class AuditReplayTest {
         status.setState(Status.ReplayState.valueOf((String) map.get("state")));
         status.setPathUri((String) map.get("pathUri"));
         status.setSendRate(Integer.toUnsignedLong((int) map.get("sendRate")));
+        if (map.get("parallelism") != null)
+            status.setParallelism((int) map.get("parallelism"));
+        if (map.get("distributed") != null)
+            status.setDistributed((boolean) map.get("distributed"));
+        status.setOwner((String) map.get("owner"));
         status.setLastUpdated(Date.from(ZonedDateTime.parse((String) map.get("lastUpdated"), dateTimeFormatter).toInstant()));
         status.setReplayUnfinishedFiles((boolean) map.get("replayUnfinishedFiles"));
         
@@ -2741,7 +3026,10 @@ public class AuditReplayTest {
                 fileStatus.setAuditsSent((int) file.get("auditsSent"));
                 fileStatus.setAuditsFailed((int) file.get("auditsFailed"));
                 fileStatus.setParseFailures((int) file.get("parseFailures"));
+                if (file.get("committedOffset") != null)
+                    fileStatus.setCommittedOffset(((Number) file.get("committedOffset")).longValue());
                 fileStatus.setEncounteredError((boolean) file.get("encounteredError"));
+                fileStatus.setOwner((String) file.get("owner"));
                 
                 fileStatuses.add(fileStatus);
             }
@@ -2782,7 +3070,7 @@ public class AuditReplayTest {
         public AuditMessageSupplier testAuditSource(ConcurrentLinkedDeque<AuditMessage> auditMessages) {
             return new AuditMessageSupplier() {
                 @Override
-                public boolean send(Message<AuditMessage> auditMessage) {
+                public boolean send(Message<AuditMessage> auditMessage, boolean mayBlock) {
                     auditMessages.addLast(auditMessage.getPayload());
                     return true;
                 }
@@ -0,0 +1,70 @@
+package datawave.microservice.audit.replay.runner;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.audit.replay.status.Status;
+
+public class ReplayRateLimiterTest {
+    
+    private Status status;
+    
+    @BeforeEach
+    public void setup() {
+        status = new Status();
+        status.setId("replayId");
+        status.setState(Status.ReplayState.RUNNING);
+    }
+    
+    @Test
+    public void testHighSendRate() {
+        status.setSendRate(20000L);
+        ReplayRateLimiter rateLimiter = new ReplayRateLimiter(status, 0.0);
+        
+        // 10000 permits at 20000/s should take roughly half a second, rather than being truncated to 1 permit per millisecond
+        long start = System.nanoTime();
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(rateLimiter.acquire());
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        assertTrue(elapsedMillis >= 400, "Permits were acquired too quickly: " + elapsedMillis + "ms");
+        assertTrue(elapsedMillis < 5000, "Permits were acquired too slowly: " + elapsedMillis + "ms");
+    }
+    
+    @Test
+    public void testRateUpdateWakesWaiters() throws Exception {
+        status.setSendRate(0L);
+        ReplayRateLimiter rateLimiter = new ReplayRateLimiter(status, 0.0);
+        
+        CompletableFuture<Boolean> acquired = CompletableFuture.supplyAsync(rateLimiter::acquire);
+        Thread.sleep(250);
+        assertFalse(acquired.isDone());
+        
+        // the paused caller should be woken as soon as the send rate is updated, rather than after the pause interval
+        status.setSendRate(100L);
+        rateLimiter.signal();
+        
+        assertTrue(acquired.get(1, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testStopWakesWaiters() throws Exception {
+        status.setSendRate(0L);
+        ReplayRateLimiter rateLimiter = new ReplayRateLimiter(status, 0.0);
+        
+        CompletableFuture<Boolean> acquired = CompletableFuture.supplyAsync(rateLimiter::acquire);
+        Thread.sleep(250);
+        
+        status.setState(Status.ReplayState.STOPPED);
+        rateLimiter.signal();
+        
+        assertFalse(acquired.get(1, TimeUnit.SECONDS));
+    }
+}
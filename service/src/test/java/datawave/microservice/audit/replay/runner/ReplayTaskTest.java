@@ -0,0 +1,414 @@
+package datawave.microservice.audit.replay.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import datawave.microservice.audit.replay.config.ReplayProperties;
+import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.audit.replay.status.StatusCache;
+
+public class ReplayTaskTest {
+    
+    private static final String LINE_1 = "{\"auditId\":\"auditId1\"}\n";
+    private static final String LINE_2 = "{\"auditId\":\"auditId2\"}\r\n";
+    private static final String LINE_3 = "{\"auditId\":\"auditId3\"}\n";
+    
+    private File tempDir;
+    
+    // the status cache is only used to store the status, so the cache inspector isn't needed
+    private final StatusCache statusCache = new StatusCache(null, new ConcurrentMapCacheManager());
+    
+    private final MapStatusCache distributedStatusCache = new MapStatusCache();
+    
+    private final ReplayProperties replayProperties = new ReplayProperties();
+    
+    private final List<String> auditIds = Collections.synchronizedList(new ArrayList<>());
+    
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("replayTaskTest").toFile();
+        auditIds.clear();
+        replayProperties.getDistributed().setHeartbeatIntervalMillis(100L);
+    }
+    
+    @AfterEach
+    public void cleanup() throws Exception {
+        FileUtils.deleteDirectory(tempDir);
+    }
+    
+    @Test
+    public void testReplayFile() throws Exception {
+        File file = new File(tempDir, "audit.json");
+        FileUtils.writeStringToFile(file, LINE_1 + LINE_2 + LINE_3, UTF_8);
+        
+        long fileLength = file.length();
+        
+        Status status = createStatus(file, Status.FileState.QUEUED);
+        replay(status);
+        
+        assertEquals(Status.ReplayState.FINISHED, status.getState());
+        assertEquals(Arrays.asList("auditId1", "auditId2", "auditId3"), auditIds);
+        
+        Status.FileStatus fileStatus = status.getFiles().get(0);
+        assertEquals(Status.FileState.FINISHED, fileStatus.getState());
+        assertEquals(3, fileStatus.getLinesRead());
+        assertEquals(3, fileStatus.getAuditsSent());
+        assertEquals(fileLength, fileStatus.getCommittedOffset());
+    }
+    
+    @Test
+    public void testResumeFromCommittedOffset() throws Exception {
+        File file = new File(tempDir, "_RUNNING.audit.json");
+        FileUtils.writeStringToFile(file, LINE_1 + LINE_2 + LINE_3, UTF_8);
+        long fileLength = file.length();
+        
+        // the committed offset is past the second line, so the replay should seek past it, even though only one line is recorded as read
+        Status status = createStatus(file, Status.FileState.RUNNING);
+        Status.FileStatus fileStatus = status.getFiles().get(0);
+        fileStatus.setLinesRead(1);
+        fileStatus.setAuditsSent(1);
+        fileStatus.setCommittedOffset(LINE_1.length() + LINE_2.length());
+        
+        replay(status);
+        
+        assertEquals(Status.ReplayState.FINISHED, status.getState());
+        assertEquals(Collections.singletonList("auditId3"), auditIds);
+        assertEquals(Status.FileState.FINISHED, fileStatus.getState());
+        assertEquals(2, fileStatus.getLinesRead());
+        assertEquals(2, fileStatus.getAuditsSent());
+        assertEquals(fileLength, fileStatus.getCommittedOffset());
+    }
+    
+    @Test
+    public void testResumeWithoutCommittedOffset() throws Exception {
+        File file = new File(tempDir, "_RUNNING.audit.json");
+        FileUtils.writeStringToFile(file, LINE_1 + LINE_2 + LINE_3, UTF_8);
+        long fileLength = file.length();
+        
+        // a status without a committed offset falls back to skipping the lines already read
+        Status status = createStatus(file, Status.FileState.RUNNING);
+        Status.FileStatus fileStatus = status.getFiles().get(0);
+        fileStatus.setLinesRead(1);
+        fileStatus.setAuditsSent(1);
+        
+        replay(status);
+        
+        assertEquals(Arrays.asList("auditId2", "auditId3"), auditIds);
+        assertEquals(3, fileStatus.getLinesRead());
+        assertEquals(3, fileStatus.getAuditsSent());
+        assertEquals(fileLength, fileStatus.getCommittedOffset());
+    }
+    
+    @Test
+    public void testLineTerminators() throws Exception {
+        // a bare '\r' ends a line, as does a "\r\n" which is split across reads, and the last line needs no terminator at all
+        File file = new File(tempDir, "audit.json");
+        FileUtils.writeStringToFile(file, LINE_1 + LINE_2 + "{\"auditId\":\"auditId3\"}\r{\"auditId\":\"auditId4\"}", UTF_8);
+        replayProperties.getPipeline().setReadBufferSize(LINE_1.length() + LINE_2.length() - 1);
+        
+        Status status = createStatus(file, Status.FileState.QUEUED);
+        replay(status);
+        
+        assertEquals(Arrays.asList("auditId1", "auditId2", "auditId3", "auditId4"), auditIds);
+        Status.FileStatus fileStatus = status.getFiles().get(0);
+        assertEquals(4, fileStatus.getLinesRead());
+        assertEquals(file.length(), fileStatus.getCommittedOffset());
+    }
+    
+    @Test
+    public void testResumeAfterCarriageReturn() throws Exception {
+        String line1 = "{\"auditId\":\"auditId1\"}\r";
+        File file = new File(tempDir, "_RUNNING.audit.json");
+        FileUtils.writeStringToFile(file, line1 + "{\"auditId\":\"auditId2\"}\r{\"auditId\":\"auditId3\"}\r", UTF_8);
+        
+        Status status = createStatus(file, Status.FileState.RUNNING);
+        Status.FileStatus fileStatus = status.getFiles().get(0);
+        fileStatus.setLinesRead(1);
+        fileStatus.setAuditsSent(1);
+        fileStatus.setCommittedOffset(line1.length());
+        
+        replay(status);
+        
+        assertEquals(Arrays.asList("auditId2", "auditId3"), auditIds);
+        assertEquals(3, fileStatus.getLinesRead());
+        assertEquals(file.length(), fileStatus.getCommittedOffset());
+    }
+    
+    @Test
+    public void testPipelineOrdering() throws Exception {
+        int numLines = 200;
+        File file = new File(tempDir, "audit.json");
+        FileUtils.writeStringToFile(file, createLines(1, numLines), UTF_8);
+        
+        // lines are parsed concurrently, and audits complete out of order, but audits are sent and committed in file order
+        replayProperties.getPipeline().setParseThreads(4);
+        replayProperties.getPipeline().setQueueCapacity(8);
+        replayProperties.getPipeline().setMaxInFlight(8);
+        
+        ScheduledExecutorService auditExecutor = Executors.newScheduledThreadPool(4);
+        try {
+            Status status = createStatus(file, Status.FileState.QUEUED);
+            new ReplayTask(new Configuration(), status, statusCache, replayProperties) {
+                @Override
+                protected boolean audit(Map<String,String> auditParamsMap) {
+                    throw new UnsupportedOperationException();
+                }
+                
+                @Override
+                protected CompletableFuture<Boolean> auditAsync(Map<String,String> auditParamsMap) {
+                    auditIds.add(auditParamsMap.get("auditId"));
+                    CompletableFuture<Boolean> result = new CompletableFuture<>();
+                    auditExecutor.schedule(() -> result.complete(true), ThreadLocalRandom.current().nextInt(5), TimeUnit.MILLISECONDS);
+                    return result;
+                }
+            }.run();
+            
+            assertEquals(Status.ReplayState.FINISHED, status.getState());
+            assertEquals(createAuditIds(1, numLines), auditIds);
+            
+            Status.FileStatus fileStatus = status.getFiles().get(0);
+            assertEquals(numLines, fileStatus.getLinesRead());
+            assertEquals(numLines, fileStatus.getAuditsSent());
+            assertEquals(file.length(), fileStatus.getCommittedOffset());
+        } finally {
+            auditExecutor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testStopShutsDownPipeline() throws Exception {
+        int numLines = 50;
+        int stopAfter = 10;
+        File file = new File(tempDir, "audit.json");
+        FileUtils.writeStringToFile(file, createLines(1, numLines), UTF_8);
+        replayProperties.getPipeline().setQueueCapacity(4);
+        
+        // stop the replay from within the send stage, while the reader still has lines left to read
+        Status status = createStatus(file, Status.FileState.QUEUED);
+        ReplayTask task = new ReplayTask(new Configuration(), status, statusCache, replayProperties) {
+            @Override
+            protected boolean audit(Map<String,String> auditParamsMap) {
+                auditIds.add(auditParamsMap.get("auditId"));
+                if (auditIds.size() == stopAfter)
+                    status.setState(Status.ReplayState.STOPPED);
+                return true;
+            }
+        };
+        Thread replayThread = new Thread(task, "stopTest");
+        replayThread.start();
+        replayThread.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(replayThread.isAlive());
+        
+        // the progress is exact, and none of the pipeline's threads are left running
+        Status.FileStatus fileStatus = status.getFiles().get(0);
+        assertEquals(createAuditIds(1, stopAfter), auditIds);
+        assertEquals(Status.FileState.RUNNING, fileStatus.getState());
+        assertEquals(stopAfter, fileStatus.getLinesRead());
+        assertEquals(createLines(1, stopAfter).length(), fileStatus.getCommittedOffset());
+        
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (pipelineThreadsAlive("stopTest-") && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertFalse(pipelineThreadsAlive("stopTest-"));
+        
+        // resuming picks up where the replay stopped
+        status.setState(Status.ReplayState.RUNNING);
+        auditIds.clear();
+        replay(status);
+        
+        assertEquals(Status.ReplayState.FINISHED, status.getState());
+        assertEquals(createAuditIds(stopAfter + 1, numLines), auditIds);
+        assertEquals(numLines, fileStatus.getLinesRead());
+        assertEquals(file.length(), fileStatus.getCommittedOffset());
+    }
+    
+    @Test
+    public void testReplayCompressedFile() throws Exception {
+        File file = new File(tempDir, "audit.json.gz");
+        
+        // write each line as a separate gzip member, as the file auditor does for each group of audits
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (String line : Arrays.asList(LINE_1, LINE_2, LINE_3)) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+                gzipOut.write(line.getBytes(UTF_8));
+                gzipOut.finish();
+            }
+        }
+        
+        Status status = createStatus(file, Status.FileState.QUEUED);
+        replay(status);
+        
+        assertEquals(Status.ReplayState.FINISHED, status.getState());
+        assertEquals(Arrays.asList("auditId1", "auditId2", "auditId3"), auditIds);
+        assertTrue(status.getFiles().get(0).getPathUri().endsWith("_FINISHED.audit.json.gz"));
+    }
+    
+    @Test
+    public void testDistributedReplayTakesOverLapsedClaim() throws Exception {
+        File lapsedFile = new File(tempDir, "_RUNNING.audit1.json");
+        FileUtils.writeStringToFile(lapsedFile, LINE_1 + LINE_2, UTF_8);
+        File queuedFile = new File(tempDir, "_QUEUED.audit2.json");
+        FileUtils.writeStringToFile(queuedFile, LINE_3, UTF_8);
+        
+        Status status = createDistributedStatus(lapsedFile, queuedFile);
+        
+        // the first file was partially replayed by an instance which has stopped renewing its claim
+        Status.FileStatus lapsedStatus = status.getFiles().get(0);
+        lapsedStatus.setLinesRead(1);
+        lapsedStatus.setAuditsSent(1);
+        lapsedStatus.setCommittedOffset(LINE_1.length());
+        lapsedStatus.setOwner("lapsedInstance");
+        lapsedStatus.setLeaseExpiration(System.currentTimeMillis() - 1000L);
+        
+        replay(status, new DistributedReplay(status.getId(), "instance", distributedStatusCache, replayProperties, false));
+        
+        assertEquals(Status.ReplayState.FINISHED, distributedStatusCache.retrieve(status.getId()).getState());
+        assertEquals(Arrays.asList("auditId2", "auditId3"), auditIds);
+        for (Status.FileStatus fileStatus : distributedStatusCache.retrieve(status.getId()).getFiles()) {
+            assertEquals(Status.FileState.FINISHED, fileStatus.getState());
+            assertNull(fileStatus.getOwner());
+        }
+    }
+    
+    @Test
+    public void testDistributedReplayWaitsForLiveClaim() throws Exception {
+        File claimedFile = new File(tempDir, "_RUNNING.audit1.json");
+        FileUtils.writeStringToFile(claimedFile, LINE_1 + LINE_2, UTF_8);
+        File queuedFile = new File(tempDir, "_QUEUED.audit2.json");
+        FileUtils.writeStringToFile(queuedFile, LINE_3, UTF_8);
+        
+        Status status = createDistributedStatus(claimedFile, queuedFile);
+        
+        // the first file is claimed by another instance which is still renewing its claim
+        Status.FileStatus claimedStatus = status.getFiles().get(0);
+        claimedStatus.setOwner("otherInstance");
+        claimedStatus.setLeaseExpiration(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+        
+        CompletableFuture<Void> replay = CompletableFuture
+                        .runAsync(() -> replay(status, new DistributedReplay(status.getId(), "instance", distributedStatusCache, replayProperties, true)));
+        
+        // only the unclaimed file should be replayed, and the replay isn't finished until the other instance finishes its file
+        Thread.sleep(500);
+        assertEquals(Collections.singletonList("auditId3"), auditIds);
+        assertFalse(replay.isDone());
+        assertEquals(Status.ReplayState.RUNNING, distributedStatusCache.retrieve(status.getId()).getState());
+        
+        claimedStatus.setState(Status.FileState.FINISHED);
+        claimedStatus.setOwner(null);
+        
+        replay.get(5, TimeUnit.SECONDS);
+        assertEquals(Collections.singletonList("auditId3"), auditIds);
+        assertEquals(Status.ReplayState.FINISHED, distributedStatusCache.retrieve(status.getId()).getState());
+    }
+    
+    private static String createLines(int first, int last) {
+        StringBuilder lines = new StringBuilder();
+        for (String auditId : createAuditIds(first, last))
+            lines.append("{\"auditId\":\"").append(auditId).append("\"}\n");
+        return lines.toString();
+    }
+    
+    private static List<String> createAuditIds(int first, int last) {
+        List<String> auditIds = new ArrayList<>();
+        for (int i = first; i <= last; i++)
+            auditIds.add("auditId" + i);
+        return auditIds;
+    }
+    
+    private static boolean pipelineThreadsAlive(String namePrefix) {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.isAlive() && thread.getName().startsWith(namePrefix));
+    }
+    
+    private Status createDistributedStatus(File... files) {
+        Status status = distributedStatusCache.create("replayId", tempDir.toURI().toString(), Long.MAX_VALUE, 1, true, false);
+        status.setState(Status.ReplayState.RUNNING);
+        for (File file : files) {
+            Status.FileState fileState = file.getName().startsWith("_RUNNING") ? Status.FileState.RUNNING : Status.FileState.QUEUED;
+            status.getFiles().add(new Status.FileStatus(file.toURI().toString(), fileState));
+        }
+        return distributedStatusCache.update(status);
+    }
+    
+    private Status createStatus(File file, Status.FileState fileState) {
+        Status status = statusCache.create("replayId", tempDir.toURI().toString(), Long.MAX_VALUE, false);
+        status.setState(Status.ReplayState.RUNNING);
+        status.setFiles(new ArrayList<>(Collections.singletonList(new Status.FileStatus(file.toURI().toString(), fileState))));
+        return status;
+    }
+    
+    private void replay(Status status) throws Exception {
+        new ReplayTask(new Configuration(), status, statusCache, replayProperties) {
+            @Override
+            protected boolean audit(Map<String,String> auditParamsMap) {
+                auditIds.add(auditParamsMap.get("auditId"));
+                return true;
+            }
+        }.run();
+    }
+    
+    private void replay(Status status, DistributedReplay distributedReplay) {
+        try {
+            new ReplayTask(new Configuration(), status, distributedStatusCache, replayProperties, distributedReplay) {
+                @Override
+                protected boolean audit(Map<String,String> auditParamsMap) {
+                    auditIds.add(auditParamsMap.get("auditId"));
+                    return true;
+                }
+            }.run();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * A map-backed status cache with a single lock, standing in for the shared cache used by distributed audit replays.
+     */
+    private static class MapStatusCache extends StatusCache {
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private MapStatusCache() {
+            super(null, new ConcurrentMapCacheManager());
+        }
+        
+        @Override
+        public boolean tryLock(String id, long waitTimeMillis, long leaseTimeMillis) {
+            try {
+                return lock.tryLock(waitTimeMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        
+        @Override
+        public void unlock(String id) {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package datawave.microservice.audit.replay.status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+public class StatusCacheTest {
+    
+    private ConcurrentMapCacheManager cacheManager;
+    
+    private StatusCache statusCache;
+    
+    private AtomicInteger headerReads;
+    
+    private Runnable onHeaderRead;
+    
+    @BeforeEach
+    public void setup() {
+        headerReads = new AtomicInteger();
+        onHeaderRead = () -> {};
+        
+        // counts header reads, and allows a concurrent write to be simulated in the middle of a read
+        cacheManager = new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                if (!StatusCache.CACHE_NAME.equals(name))
+                    return super.createConcurrentMapCache(name);
+                
+                return new ConcurrentMapCache(name) {
+                    @Override
+                    public ValueWrapper get(Object key) {
+                        headerReads.incrementAndGet();
+                        ValueWrapper value = super.get(key);
+                        onHeaderRead.run();
+                        return value;
+                    }
+                };
+            }
+        };
+        statusCache = new StatusCache(null, cacheManager);
+    }
+    
+    @Test
+    public void testRetrieveAssemblesFiles() {
+        Status status = createStatus();
+        
+        Status retrieved = statusCache.retrieve("replayId");
+        assertNotSame(status, retrieved);
+        assertEquals(Status.ReplayState.RUNNING, retrieved.getState());
+        assertEquals(2, retrieved.getParallelism());
+        assertEquals(2, retrieved.getFiles().size());
+        assertEquals("file1", retrieved.getFiles().get(0).getPathUri());
+        assertEquals("file2", retrieved.getFiles().get(1).getPathUri());
+    }
+    
+    @Test
+    public void testUpdateFileOnlyWritesOneFile() {
+        Status status = createStatus();
+        
+        // changes to the other files aren't written until they are updated
+        Status.FileStatus updatedFile = new Status.FileStatus("file2", Status.FileState.RUNNING);
+        updatedFile.setLinesRead(10);
+        status.getFiles().set(1, updatedFile);
+        status.getFiles().set(0, new Status.FileStatus("file1", Status.FileState.FAILED));
+        statusCache.updateFile(status, 1);
+        
+        Status retrieved = statusCache.retrieve("replayId");
+        assertEquals(Status.FileState.QUEUED, retrieved.getFiles().get(0).getState());
+        assertEquals(Status.FileState.RUNNING, retrieved.getFiles().get(1).getState());
+        assertEquals(10, retrieved.getFiles().get(1).getLinesRead());
+    }
+    
+    @Test
+    public void testRetrieveRetriesAfterConcurrentWrite() {
+        Status status = createStatus();
+        
+        // rewrite the header once, in between the first read of the header and the check which follows it
+        AtomicInteger writes = new AtomicInteger();
+        onHeaderRead = () -> {
+            if (writes.getAndIncrement() == 0) {
+                status.setSendRate(200L);
+                statusCache.updateHeader(status);
+            }
+        };
+        
+        headerReads.set(0);
+        Status retrieved = statusCache.retrieve("replayId");
+        
+        // the first read is discarded, and the files are read again for the latest header. the concurrent write reads the header once too
+        assertEquals(200L, retrieved.getSendRate());
+        assertEquals(4, headerReads.get());
+    }
+    
+    @Test
+    public void testUpdateStoresHeaderAndFilesSeparately() {
+        createStatus();
+        
+        Cache headers = cacheManager.getCache(StatusCache.CACHE_NAME);
+        Cache files = cacheManager.getCache(StatusCache.FILES_CACHE_NAME);
+        assertTrue(headers.get("replayId").get() instanceof StatusCache.Header);
+        assertEquals("file1", files.get("replayId/0", Status.FileStatus.class).getPathUri());
+        assertEquals("file2", files.get("replayId/1", Status.FileStatus.class).getPathUri());
+        assertNull(files.get("replayId/2"));
+    }
+    
+    @Test
+    public void testRetrieveLegacyStatus() {
+        Status legacy = createLegacyStatus();
+        
+        Status retrieved = statusCache.retrieve("replayId");
+        assertEquals(legacy.getState(), retrieved.getState());
+        assertEquals(2, retrieved.getFiles().size());
+        assertEquals("file2", retrieved.getFiles().get(1).getPathUri());
+    }
+    
+    @Test
+    public void testUpdateHeaderSplitsLegacyStatus() {
+        createLegacyStatus();
+        
+        Status status = statusCache.retrieve("replayId");
+        status.setSendRate(200L);
+        statusCache.updateHeader(status);
+        
+        // the files are written along with the first header, since the legacy status was the only copy of them
+        assertTrue(cacheManager.getCache(StatusCache.CACHE_NAME).get("replayId").get() instanceof StatusCache.Header);
+        Status retrieved = statusCache.retrieve("replayId");
+        assertEquals(200L, retrieved.getSendRate());
+        assertEquals(2, retrieved.getFiles().size());
+        assertEquals("file1", retrieved.getFiles().get(0).getPathUri());
+        assertEquals("file2", retrieved.getFiles().get(1).getPathUri());
+    }
+    
+    @Test
+    public void testTouchLegacyStatus() throws Exception {
+        Status legacy = createLegacyStatus();
+        long lastUpdated = legacy.getLastUpdated().getTime();
+        
+        Thread.sleep(5);
+        statusCache.touch("replayId");
+        
+        Status retrieved = statusCache.retrieve("replayId");
+        assertEquals(2, retrieved.getFiles().size());
+        assertTrue(retrieved.getLastUpdated().getTime() > lastUpdated);
+    }
+    
+    @Test
+    public void testDelete() {
+        createStatus();
+        
+        assertEquals("Evicted replayId", statusCache.delete("replayId"));
+        assertNull(statusCache.retrieve("replayId"));
+    }
+    
+    private Status createStatus() {
+        Status status = statusCache.create("replayId", "/path", 100L, 2, false, false);
+        status.setState(Status.ReplayState.RUNNING);
+        status.setFiles(Arrays.asList(new Status.FileStatus("file1", Status.FileState.QUEUED), new Status.FileStatus("file2", Status.FileState.QUEUED)));
+        return statusCache.update(status);
+    }
+    
+    // older instances stored the whole status in the header cache
+    private Status createLegacyStatus() {
+        Status status = new Status();
+        status.setId("replayId");
+        status.setState(Status.ReplayState.RUNNING);
+        status.setPathUri("/path");
+        status.setSendRate(100L);
+        status.setLastUpdated(new Date());
+        status.setFiles(Arrays.asList(new Status.FileStatus("file1", Status.FileState.QUEUED), new Status.FileStatus("file2", Status.FileState.QUEUED)));
+        cacheManager.getCache(StatusCache.CACHE_NAME).put("replayId", status);
+        return status;
+    }
+}